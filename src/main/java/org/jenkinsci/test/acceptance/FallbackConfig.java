@@ -10,7 +10,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.aether.RepositorySystem;
@@ -23,8 +23,10 @@ import org.jenkinsci.test.acceptance.guice.TestCleaner;
 import org.jenkinsci.test.acceptance.guice.TestName;
 import org.jenkinsci.test.acceptance.guice.TestScope;
 import org.jenkinsci.test.acceptance.po.Jenkins;
+import org.jenkinsci.test.acceptance.selenium.ElasticTimeouts;
 import org.jenkinsci.test.acceptance.selenium.SanityChecker;
 import org.jenkinsci.test.acceptance.selenium.Scroller;
+import org.jenkinsci.test.acceptance.selenium.WebDriverPool;
 import org.jenkinsci.test.acceptance.server.JenkinsControllerPoolProcess;
 import org.jenkinsci.test.acceptance.server.PooledJenkinsController;
 import org.jenkinsci.test.acceptance.slave.LocalSlaveProvider;
@@ -40,7 +42,6 @@ import org.jenkinsci.test.acceptance.utils.pluginreporter.TextFileExercisedPlugi
 import org.jenkinsci.test.acceptance.utils.pluginreporter.ConsoleExercisedPluginReporter;
 import org.junit.runners.model.Statement;
 import org.openqa.selenium.Dimension;
-import org.openqa.selenium.UnsupportedCommandException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeDriverService;
@@ -90,10 +91,14 @@ public class FallbackConfig extends AbstractModule {
         bind(MailService.class).to(Mailtrap.class);
     }
 
-    private WebDriver createWebDriver(TestName testName) throws IOException {
+    private static String getBrowser() {
         String browser = System.getenv("BROWSER");
         if (browser==null) browser = "firefox";
-        browser = browser.toLowerCase(Locale.ENGLISH);
+        return browser.toLowerCase(Locale.ENGLISH);
+    }
+
+    private WebDriver createWebDriver(TestName testName) throws IOException {
+        String browser = getBrowser();
 
         String display = getBrowserDisplay();
         switch (browser) {
@@ -174,11 +179,7 @@ public class FallbackConfig extends AbstractModule {
         return d;
     }
 
-    /**
-     * Creates a {@link WebDriver} for each test, then make sure to clean it up at the end.
-     */
-    @Provides @TestScope
-    public WebDriver createWebDriver(TestCleaner cleaner, TestName testName, ElasticTime time) throws IOException {
+    private WebDriver createResizedWebDriver(TestName testName) throws IOException {
         WebDriver base = createWebDriver(testName);
 
         // Make sue the window have minimal resolution set, even when out of the visible screen.
@@ -187,21 +188,49 @@ public class FallbackConfig extends AbstractModule {
         if (oldSize.height < 1050 || oldSize.width < 1680) {
             base.manage().window().setSize(new Dimension(1680, 1050));
         }
+        return base;
+    }
+
+    /**
+     * Creates a {@link WebDriver} for each test, or takes one from the {@link WebDriverPool}, then make sure to clean
+     * it up at the end.
+     */
+    @Provides @TestScope
+    public WebDriver createWebDriver(TestCleaner cleaner, final TestName testName, ElasticTime time, final WebDriverPool pool) throws IOException {
+        // Sauce Labs sessions are named after the test
+        final boolean pooled = pool.isEnabled() && !getBrowser().startsWith("saucelabs");
+        final String poolKey = getBrowser() + "@" + getBrowserDisplay();
+        final WebDriver base;
+        if (pooled) {
+            base = pool.acquire(poolKey, new Callable<WebDriver>() {
+                @Override
+                public WebDriver call() throws IOException {
+                    return createResizedWebDriver(testName);
+                }
+            });
+        } else {
+            base = createResizedWebDriver(testName);
+        }
 
         final EventFiringWebDriver d = new EventFiringWebDriver(base);
         d.register(new SanityChecker());
         d.register(new Scroller());
-
-        try {
-            d.manage().timeouts().pageLoadTimeout(time.seconds(30), TimeUnit.MILLISECONDS);
-            d.manage().timeouts().implicitlyWait(time.seconds(1), TimeUnit.MILLISECONDS);
-        } catch (UnsupportedCommandException e) {
-            // sauce labs RemoteWebDriver doesn't support this
-            System.out.println(base + " doesn't support page load timeout");
+        final WebDriverPool.VisitedPages visited = new WebDriverPool.VisitedPages();
+        if (pooled) {
+            d.register(visited);
         }
+
+        // Set again whenever the time stretches
+        ElasticTimeouts timeouts = new ElasticTimeouts(time);
+        timeouts.apply(base);
+        d.register(timeouts);
         cleaner.addTask(new Statement() {
             @Override
             public void evaluate() throws Throwable {
+                if (pooled) {
+                    pool.release(poolKey, base, visited.getPages());
+                    return;
+                }
                 try {
                     d.quit();
                 } catch (UnreachableBrowserException ex) {
@@ -0,0 +1,236 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Startup oriented launch profile for the JVM running jenkins.war.
+ *
+ * <p>
+ * The first boot of particular war, plugins and JVM records the loaded classes into a class data sharing archive as
+ * Jenkins exits, the later boots map the archive instead of loading and verifying the classes again. Archives are kept
+ * in <tt>$WORKSPACE/cds</tt>, keyed by all that can change the set of classes loaded, and shared by all the JVMs using
+ * the same workspace. The JVM validates the archive when mapping it and silently ignores it when it does not match.
+ *
+ * <p>
+ * Apart from that, the JIT is limited to C1 and the serial GC is used unless some GC is configured explicitly as
+ * the instances are short-lived.
+ *
+ * <p>
+ * Enabled by setting <tt>JENKINS_CDS=true</tt>, requires Java 13 or newer to run Jenkins.
+ */
+@Singleton
+public class ClassDataSharing {
+    private static final Logger LOGGER = Logger.getLogger(ClassDataSharing.class.getName());
+
+    private static final Pattern VERSION = Pattern.compile("version \"(?:1\\.)?(\\d+)");
+
+    /**
+     * Feature version of java binaries keyed by path.
+     */
+    private static final Map<String, Integer> JAVA_VERSIONS = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final File root;
+
+    @Inject
+    public ClassDataSharing(@Named("WORKSPACE") String workspace) {
+        this(new File(workspace, "cds"), "true".equals(System.getenv("JENKINS_CDS")));
+    }
+
+    public ClassDataSharing(@Nonnull File root, boolean enabled) {
+        this.root = root;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Launch profile for Jenkins about to be started.
+     *
+     * @param java Java binary to run Jenkins.
+     * @param war jenkins.war to run.
+     * @param plugins Directory with plugins Jenkins is going to load.
+     * @param javaOpts Options configured by user, those take precedence.
+     * @return null when the java can not use the profile.
+     */
+    public @CheckForNull Profile profile(
+            @Nonnull String java, @Nonnull File war, @Nonnull File plugins, @Nonnull List<String> javaOpts
+    ) throws IOException {
+        int version = javaVersion(java);
+        if (version < 13) {
+            LOGGER.info("Class data sharing requires Java 13 or newer to run Jenkins, " + java + " is " + version);
+            return null;
+        }
+
+        List<String> options = new ArrayList<>();
+        options.add("-XX:TieredStopAtLevel=1");
+        if (!selectsGc(javaOpts)) {
+            options.add("-XX:+UseSerialGC");
+        }
+
+        Files.createDirectories(root.toPath());
+        File archive = new File(root, key(java, war, plugins, options) + ".jsa");
+        if (archive.isFile()) {
+            options.add("-XX:SharedArchiveFile=" + archive);
+            return new Profile(options, archive, null);
+        }
+
+        // Each JVM records its own archive, the first one to finish wins
+        File training = new File(root, archive.getName() + "." + UUID.randomUUID() + ".tmp");
+        options.add("-XX:ArchiveClassesAtExit=" + training);
+        return new Profile(options, archive, training);
+    }
+
+    /**
+     * How particular Jenkins instance is launched.
+     */
+    public static final class Profile {
+        private final List<String> options;
+        private final File archive;
+        private final File training;
+
+        /*package*/ Profile(List<String> options, File archive, @CheckForNull File training) {
+            this.options = Collections.unmodifiableList(options);
+            this.archive = archive;
+            this.training = training;
+        }
+
+        public List<String> getOptions() {
+            return options;
+        }
+
+        /**
+         * @return true if the archive is recorded by this instance.
+         */
+        public boolean isTraining() {
+            return training != null;
+        }
+
+        /**
+         * Name of the {@link org.jenkinsci.test.acceptance.junit.Timings} phase to report the boot under.
+         */
+        public String getPhase() {
+            return isTraining() ? "controller.start.cds-training" : "controller.start.cds";
+        }
+
+        /**
+         * Make the archive recorded by the instance available for later boots, once the JVM has exited.
+         */
+        public void publish(Process process) {
+            if (!isTraining()) return;
+
+            try {
+                // The archive is written as the JVM exits
+                if (!process.waitFor(60, TimeUnit.SECONDS)) {
+                    LOGGER.warning("Jenkins did not exit in time to record class data sharing archive " + archive);
+                    return;
+                }
+                if (training.length() > 0 && !archive.exists()) {
+                    Files.move(training.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    LOGGER.info("Recorded class data sharing archive " + archive);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to record class data sharing archive " + archive, e);
+            } finally {
+                try {
+                    Files.deleteIfExists(training.toPath());
+                } catch (IOException e) {
+                    // Best effort
+                }
+            }
+        }
+    }
+
+    /*package*/ static boolean selectsGc(List<String> javaOpts) {
+        for (String opt : javaOpts) {
+            if (opt.matches("-XX:\\+Use\\w+GC")) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Identify everything that changes the classes loaded. Plugins are identified by name and size as those get
+     * different timestamps in every JENKINS_HOME.
+     */
+    /*package*/ static String key(String java, File war, File plugins, List<String> options) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("java:").append(java).append(':').append(new File(java).lastModified()).append('\n');
+        sb.append("war:").append(ExplodedArtifactCache.checksum(war)).append('\n');
+        for (String option : options) {
+            sb.append("option:").append(option).append('\n');
+        }
+
+        File[] files = plugins.listFiles();
+        if (files != null) {
+            Arrays.sort(files);
+            for (File f : files) {
+                if (f.isFile()) {
+                    sb.append("plugin:").append(f.getName()).append(':').append(f.length()).append('\n');
+                }
+            }
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            Formatter formatter = new Formatter();
+            for (byte b : digest) {
+                formatter.format("%02x", b);
+            }
+            return formatter.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static int javaVersion(String java) throws IOException {
+        Integer version = JAVA_VERSIONS.get(java);
+        if (version == null) {
+            version = javaVersion(new ProcessBuilder(java, "-version").redirectErrorStream(true).start());
+            JAVA_VERSIONS.put(java, version);
+        }
+        return version;
+    }
+
+    /**
+     * Feature version reported by <tt>java -version</tt>, 0 when not recognized.
+     */
+    /*package*/ static int javaVersion(Process p) throws IOException {
+        String out;
+        try (InputStream in = p.getInputStream()) {
+            out = IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+        Matcher m = VERSION.matcher(out);
+        return m.find() ? Integer.parseInt(m.group(1)) : 0;
+    }
+}
@@ -0,0 +1,264 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.test.acceptance.utils.SHA1Sum;
+
+/**
+ * Exploded jenkins.war and plugins shared by all {@link LocalController}s using the same workspace.
+ *
+ * <p>
+ * Jenkins extracts the war into <tt>JENKINS_HOME/war</tt> and every plugin archive into <tt>JENKINS_HOME/plugins/NAME</tt>
+ * unless the directory is marked as extracted from the very same archive. The cache keeps the exploded content keyed by
+ * the checksum of the archive in <tt>$WORKSPACE/exploded-cache</tt> and hard-links it into the home together with
+ * the marker, so nothing is extracted again. Jenkins only ever replaces the exploded content as a whole, so the linked
+ * files are never modified. Files are copied when the filesystem can not link them.
+ *
+ * <p>
+ * The war is exploded by the cache itself. Plugins are exploded by Jenkins and their content is taken over by the cache
+ * once the home is no longer needed.
+ *
+ * <p>
+ * Enabled by setting <tt>EXPLODED_CACHE=true</tt>.
+ */
+@Singleton
+public class ExplodedArtifactCache {
+    private static final Logger LOGGER = Logger.getLogger(ExplodedArtifactCache.class.getName());
+
+    /**
+     * Written as the last file of the cached directory so incomplete ones are never used.
+     */
+    private static final String COMPLETE = ".cache-complete";
+
+    /**
+     * Winstone considers the webroot up to date when this file has the timestamp of the war.
+     */
+    private static final String WAR_MARKER = ".timestamp";
+
+    /**
+     * Jenkins considers the exploded plugin up to date when this file has the timestamp of the archive.
+     */
+    private static final String PLUGIN_MARKER = ".timestamp2";
+
+    /**
+     * Checksums of archives keyed by path, size and timestamp so the file is not read for every test.
+     */
+    private static final Map<String, String> CHECKSUMS = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final File root;
+
+    @Inject
+    public ExplodedArtifactCache(@Named("WORKSPACE") String workspace) {
+        this(new File(workspace, "exploded-cache"), "true".equals(System.getenv("EXPLODED_CACHE")));
+    }
+
+    public ExplodedArtifactCache(@Nonnull File root, boolean enabled) {
+        this.root = root;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Put the exploded war into <tt>JENKINS_HOME/war</tt>, exploding it into the cache first if needed.
+     *
+     * Nothing is done when the home has an exploded war already, such as when restored from a snapshot.
+     */
+    public void linkWar(@Nonnull File war, @Nonnull File home) throws IOException {
+        File webroot = new File(home, "war");
+        if (new File(webroot, WAR_MARKER).exists()) return;
+
+        File cached = new File(root, "war/" + checksum(war));
+        if (!isComplete(cached)) {
+            Path tmp = tmpDir(cached);
+            try {
+                unzip(war, tmp.toFile());
+                complete(tmp, cached);
+                LOGGER.info("Exploded " + war + " to " + cached);
+            } finally {
+                FileUtils.deleteQuietly(tmp.toFile());
+            }
+        }
+
+        FileUtils.deleteDirectory(webroot);
+        link(cached.toPath(), webroot.toPath());
+        mark(new File(webroot, WAR_MARKER), war);
+    }
+
+    /**
+     * Put the exploded content of plugins in <tt>JENKINS_HOME/plugins</tt> the cache knows about.
+     */
+    public void linkPlugins(@Nonnull File home) throws IOException {
+        File[] archives = new File(home, "plugins").listFiles();
+        if (archives == null) return;
+
+        for (File archive : archives) {
+            File exploded = explodedDir(archive);
+            if (exploded == null || exploded.exists()) continue;
+
+            File cached = new File(root, "plugins/" + checksum(archive));
+            if (!isComplete(cached)) continue;
+
+            link(cached.toPath(), exploded.toPath());
+            mark(new File(exploded, PLUGIN_MARKER), archive);
+        }
+    }
+
+    /**
+     * Take over the plugins exploded by Jenkins in the home that is about to be deleted.
+     */
+    public void capturePlugins(@Nonnull File home) throws IOException {
+        File[] archives = new File(home, "plugins").listFiles();
+        if (archives == null) return;
+
+        for (File archive : archives) {
+            File exploded = explodedDir(archive);
+            if (exploded == null) continue;
+
+            // Exploded from this very archive
+            File marker = new File(exploded, PLUGIN_MARKER);
+            if (!marker.exists() || marker.lastModified() != archive.lastModified()) continue;
+
+            File cached = new File(root, "plugins/" + checksum(archive));
+            if (isComplete(cached)) continue;
+
+            Path tmp = tmpDir(cached);
+            try {
+                link(exploded.toPath(), tmp);
+                Files.deleteIfExists(tmp.resolve(PLUGIN_MARKER));
+                complete(tmp, cached);
+            } finally {
+                FileUtils.deleteQuietly(tmp.toFile());
+            }
+        }
+    }
+
+    /**
+     * @return The directory Jenkins explodes the plugin archive into, null if the file is not a plugin.
+     */
+    private static File explodedDir(File archive) {
+        String name = archive.getName();
+        if (!archive.isFile() || !(name.endsWith(".jpi") || name.endsWith(".hpi"))) return null;
+        return new File(archive.getParentFile(), name.substring(0, name.length() - 4));
+    }
+
+    private static boolean isComplete(File cached) {
+        return new File(cached, COMPLETE).exists();
+    }
+
+    private Path tmpDir(File cached) throws IOException {
+        Files.createDirectories(cached.getParentFile().toPath());
+        return Files.createTempDirectory(cached.getParentFile().toPath(), cached.getName() + ".tmp");
+    }
+
+    /**
+     * Move the populated directory into its place. Several JVMs can populate the same directory concurrently, only
+     * one survives.
+     */
+    private static void complete(Path tmp, File cached) throws IOException {
+        Files.createFile(tmp.resolve(COMPLETE));
+        try {
+            Files.move(tmp, cached.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException|AtomicMoveNotSupportedException ex) {
+            // Populated concurrently
+        } catch (IOException ex) {
+            if (!isComplete(cached)) throw ex;
+        }
+    }
+
+    /**
+     * Marker for the exploded directory is specific to the instance as it carries the timestamp of its archive.
+     */
+    private static void mark(File marker, File archive) throws IOException {
+        Files.deleteIfExists(marker.toPath());
+        FileUtils.touch(marker);
+        if (!marker.setLastModified(archive.lastModified())) {
+            throw new IOException("Unable to set timestamp of " + marker);
+        }
+    }
+
+    /**
+     * Hard-link all the files from one directory to another one, copy them when the filesystem can not do that.
+     */
+    private static void link(final Path from, final Path to) throws IOException {
+        Files.walkFileTree(from, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(to.resolve(from.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path rel = from.relativize(file);
+                if (rel.toString().equals(COMPLETE)) return FileVisitResult.CONTINUE;
+
+                Path dst = to.resolve(rel);
+                try {
+                    Files.createLink(dst, file);
+                } catch (IOException|UnsupportedOperationException ex) {
+                    // Filesystem can not do that, fall back to copy
+                    Files.copy(file, dst, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void unzip(File archive, File dir) throws IOException {
+        try (ZipFile zip = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry e = entries.nextElement();
+                File dst = new File(dir, e.getName());
+                if (!dst.getCanonicalPath().startsWith(dir.getCanonicalPath() + File.separator)) {
+                    throw new IOException("Entry " + e.getName() + " is outside of " + archive);
+                }
+                if (e.isDirectory()) {
+                    Files.createDirectories(dst.toPath());
+                } else {
+                    try (InputStream in = zip.getInputStream(e)) {
+                        FileUtils.copyInputStreamToFile(in, dst);
+                    }
+                    if (e.getTime() >= 0) {
+                        dst.setLastModified(e.getTime());
+                    }
+                }
+            }
+        }
+    }
+
+    /*package*/ static String checksum(File archive) {
+        String id = archive.getAbsolutePath() + ':' + archive.length() + ':' + archive.lastModified();
+        String checksum = CHECKSUMS.get(id);
+        if (checksum == null) {
+            checksum = new SHA1Sum(archive).getSha1String();
+            CHECKSUMS.put(id, checksum);
+        }
+        return checksum;
+    }
+}
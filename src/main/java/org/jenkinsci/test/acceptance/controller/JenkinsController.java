@@ -14,6 +14,7 @@ import java.util.logging.Logger;
 import org.apache.commons.io.IOUtils;
 import org.codehaus.plexus.util.FileUtils;
 import org.jenkinsci.test.acceptance.guice.AutoCleaned;
+import org.jenkinsci.test.acceptance.junit.Timings;
 import org.jenkinsci.test.acceptance.log.LogListener;
 import org.jenkinsci.test.acceptance.log.LogPrinter;
 import org.jenkinsci.test.acceptance.log.NullPrinter;
@@ -54,6 +55,11 @@ public abstract class JenkinsController implements IJenkinsController, AutoClean
 
     private boolean isRunning;
 
+    /**
+     * Number of times Jenkins was started by this controller.
+     */
+    private volatile int starts;
+
     protected final OutputStream logger;
 
     protected JenkinsController(Injector i) {
@@ -100,9 +106,14 @@ public abstract class JenkinsController implements IJenkinsController, AutoClean
                                 + "Starting the Jenkins server under test requires that the tools configuration\n"
                                 + "is provided in file tool_installers.zip in your class path.");
             }
-            populateJenkinsHome(IOUtils.toByteArray(url), false);
-            startNow();
+            try (Timings.Timer t = Timings.get().start("controller.populateJenkinsHome")) {
+                populateJenkinsHome(IOUtils.toByteArray(url), false);
+            }
+            try (Timings.Timer t = Timings.get().start("controller.start")) {
+                startNow();
+            }
             isRunning = true;
+            starts++;
         }
     }
 
@@ -173,6 +184,14 @@ public abstract class JenkinsController implements IJenkinsController, AutoClean
         return isRunning;
     }
 
+    /**
+     * Number of times Jenkins was started, so state read from Jenkins can be told apart from the state of the Jenkins
+     * started later.
+     */
+    public int getStartCount() {
+        return starts;
+    }
+
     /**
      * Gives URL where Jenkins is listening. Must end with "/"
      */
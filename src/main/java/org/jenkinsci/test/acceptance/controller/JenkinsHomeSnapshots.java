@@ -0,0 +1,290 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.test.acceptance.utils.SHA1Sum;
+
+/**
+ * Keeps fully booted JENKINS_HOME directories so {@link LocalController}s can start from them instead of a cold home.
+ *
+ * <p>
+ * A snapshot is captured once Jenkins is up and the plugins required by the test are installed. It is keyed by the
+ * checksum of jenkins.war, the plugins given to the controller, the plugins the test requires and the way Jenkins is
+ * launched so a later test with the same setup finds all of them in place. Snapshots live in
+ * <tt>$WORKSPACE/home-snapshots</tt> and are shared by all the JVMs using the same workspace.
+ *
+ * <p>
+ * Jenkins keeps running, quieted down, while its home is captured. Logs and temporary files are left out and the
+ * snapshot is discarded when any of the files changes while being copied.
+ *
+ * <p>
+ * Restoring creates hard links for files Jenkins never rewrites in place (the exploded war and exploded plugins,
+ * those are deleted and extracted again when changed) and copies the rest. The restored instance can therefore
+ * modify its home freely without corrupting the snapshot.
+ *
+ * <p>
+ * Enabled by setting <tt>JENKINS_HOME_SNAPSHOTS=true</tt>.
+ */
+@Singleton
+public class JenkinsHomeSnapshots {
+    private static final Logger LOGGER = Logger.getLogger(JenkinsHomeSnapshots.class.getName());
+
+    /**
+     * Written as the last file of the snapshot so incomplete ones are never restored.
+     */
+    private static final String COMPLETE = ".snapshot-complete";
+
+    /**
+     * Files that are specific to particular instance and should not be carried over.
+     */
+    private static final List<String> EXCLUDED = Arrays.asList(
+            COMPLETE,
+            // Contains the URL (port) of the instance the snapshot was taken from
+            "jenkins.model.JenkinsLocationConfiguration.xml"
+    );
+
+    /**
+     * Directories written to all the time while Jenkins runs.
+     */
+    private static final List<String> VOLATILE = Collections.singletonList("logs");
+
+    /**
+     * Checksums of wars keyed by path, size and timestamp so the war is not read for every test.
+     */
+    private static final Map<String, String> WAR_CHECKSUMS = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final File root;
+
+    @Inject
+    public JenkinsHomeSnapshots(@Named("WORKSPACE") String workspace) {
+        this(new File(workspace, "home-snapshots"), "true".equals(System.getenv("JENKINS_HOME_SNAPSHOTS")));
+    }
+
+    public JenkinsHomeSnapshots(@Nonnull File root, boolean enabled) {
+        this.root = root;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public @Nonnull File getRoot() {
+        return root;
+    }
+
+    /**
+     * Compute the key identifying the home to be captured or restored.
+     *
+     * @param war jenkins.war to run.
+     * @param givenPlugins Directory of plugins copied into every home, if any.
+     * @param plugins Specs of plugins required by the test.
+     * @param launch How Jenkins is launched, such as the controller type and JVM options.
+     */
+    public @Nonnull String key(
+            @Nonnull File war, @CheckForNull File givenPlugins, @Nonnull Collection<String> plugins, @Nonnull String launch
+    ) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("war:").append(warChecksum(war)).append('\n');
+        sb.append("launch:").append(launch).append('\n');
+
+        if (givenPlugins != null && givenPlugins.isDirectory()) {
+            File[] files = givenPlugins.listFiles();
+            if (files != null) {
+                Arrays.sort(files);
+                for (File f : files) {
+                    sb.append("given:").append(f.getName()).append(':')
+                            .append(f.length()).append(':').append(f.lastModified()).append('\n')
+                    ;
+                }
+            }
+        }
+
+        List<String> sorted = new ArrayList<>(plugins);
+        Collections.sort(sorted);
+        for (String plugin : sorted) {
+            sb.append("plugin:").append(plugin).append('\n');
+        }
+
+        return sha1(sb.toString());
+    }
+
+    /**
+     * @return true if there is a complete snapshot for the key.
+     */
+    public boolean exists(@Nonnull String key) {
+        return new File(new File(root, key), COMPLETE).exists();
+    }
+
+    /**
+     * Replace the content of the home with the snapshot.
+     *
+     * @return false if there is no snapshot to restore from, the home is not touched in such case.
+     */
+    public boolean restore(@Nonnull String key, @Nonnull File home) throws IOException {
+        if (!exists(key)) return false;
+
+        final Path snapshot = new File(root, key).toPath();
+        final Path target = home.toPath();
+        if (home.isDirectory()) {
+            FileUtils.cleanDirectory(home);
+        }
+        Files.createDirectories(target);
+
+        Files.walkFileTree(snapshot, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(snapshot.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path rel = snapshot.relativize(file);
+                if (EXCLUDED.contains(rel.toString())) return FileVisitResult.CONTINUE;
+
+                Path dst = target.resolve(rel);
+                if (!isRewrittenInPlace(rel)) {
+                    try {
+                        Files.createLink(dst, file);
+                        return FileVisitResult.CONTINUE;
+                    } catch (IOException|UnsupportedOperationException ex) {
+                        // Filesystem can not do that, fall back to copy
+                    }
+                }
+                Files.copy(file, dst, StandardCopyOption.COPY_ATTRIBUTES);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Capture the home of a running Jenkins, unless there already is a snapshot for the key.
+     *
+     * Nothing is captured when some of the files change while being copied. Several JVMs can capture the same key
+     * concurrently, only one snapshot survives.
+     */
+    public void capture(@Nonnull String key, @Nonnull File home) throws IOException {
+        if (exists(key)) return;
+
+        Files.createDirectories(root.toPath());
+        final Path source = home.toPath();
+        final Path tmp = Files.createTempDirectory(root.toPath(), key + ".tmp");
+        final List<Path> changed = new ArrayList<>();
+        try {
+            Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    Path rel = source.relativize(dir);
+                    if (VOLATILE.contains(rel.toString())) return FileVisitResult.SKIP_SUBTREE;
+
+                    Files.createDirectories(tmp.resolve(rel));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Path rel = source.relativize(file);
+                    if (EXCLUDED.contains(rel.toString()) || rel.getFileName().toString().endsWith(".tmp")) {
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    Files.copy(file, tmp.resolve(rel), StandardCopyOption.COPY_ATTRIBUTES);
+                    BasicFileAttributes after = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (after.size() != attrs.size() || !after.lastModifiedTime().equals(attrs.lastModifiedTime())) {
+                        changed.add(rel);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                    // Jenkins is running so files can come and go
+                    changed.add(source.relativize(file));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            if (!changed.isEmpty()) {
+                LOGGER.info("Not capturing JENKINS_HOME snapshot " + key + ", files changed while being copied: " + changed);
+                return;
+            }
+            Files.createFile(tmp.resolve(COMPLETE));
+
+            try {
+                Files.move(tmp, new File(root, key).toPath(), StandardCopyOption.ATOMIC_MOVE);
+                LOGGER.info("Captured JENKINS_HOME snapshot " + key + " from " + home);
+            } catch (FileAlreadyExistsException|AtomicMoveNotSupportedException ex) {
+                // Captured concurrently
+            } catch (IOException ex) {
+                if (!exists(key)) throw ex;
+            }
+        } finally {
+            if (Files.exists(tmp)) {
+                FileUtils.deleteQuietly(tmp.toFile());
+            }
+        }
+    }
+
+    /**
+     * Content of the exploded war and exploded plugins (plugins/NAME/**) is replaced by extracting the archive
+     * again so the files are safe to share. Everything else, archives included, can be overwritten in place.
+     */
+    private static boolean isRewrittenInPlace(Path rel) {
+        if (rel.getNameCount() < 2) return true;
+        String top = rel.getName(0).toString();
+        if ("war".equals(top)) return false;
+        return !("plugins".equals(top) && rel.getNameCount() >= 3);
+    }
+
+    private static String warChecksum(File war) {
+        String id = war.getAbsolutePath() + ':' + war.length() + ':' + war.lastModified();
+        String checksum = WAR_CHECKSUMS.get(id);
+        if (checksum == null) {
+            checksum = new SHA1Sum(war).getSha1String();
+            WAR_CHECKSUMS.put(id, checksum);
+        }
+        return checksum;
+    }
+
+    private static String sha1(String in) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(in.getBytes(StandardCharsets.UTF_8));
+            Formatter formatter = new Formatter();
+            for (byte b : digest) {
+                formatter.format("%02x", b);
+            }
+            return formatter.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
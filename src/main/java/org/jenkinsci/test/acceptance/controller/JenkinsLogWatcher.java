@@ -3,18 +3,20 @@ package org.jenkinsci.test.acceptance.controller;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
+import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.input.TeeInputStream;
+import org.jenkinsci.test.acceptance.log.AsyncLogListener;
+import org.jenkinsci.test.acceptance.log.LogFileWriter;
 import org.jenkinsci.test.acceptance.log.LogListenable;
 import org.jenkinsci.test.acceptance.log.LogListener;
 import org.jenkinsci.test.acceptance.log.LogReader;
@@ -41,6 +43,11 @@ public class JenkinsLogWatcher implements LogListenable, Closeable {
 
     public final File logFile;
 
+    /**
+     * Bytes of the log to include in the exception when Jenkins fails to load.
+     */
+    private static final int MESSAGE_LOG_TAIL = 64 * 1024;
+
     private InputStream pipe;
 
     /**
@@ -53,8 +60,15 @@ public class JenkinsLogWatcher implements LogListenable, Closeable {
      */
     private final LogSplitter splitter = new LogSplitter();
 
+    /**
+     * Slow sinks, console and log file, fed asynchronously so they do not hold back the watchers.
+     */
+    private final LogSplitter sinks = new LogSplitter();
+
     private final LogWatcher watcher = new LogWatcher();
 
+    private final AsyncLogListener async;
+
     /**
      * @param id
      *      Short ID that indicates the log that we are watching.
@@ -63,10 +77,13 @@ public class JenkinsLogWatcher implements LogListenable, Closeable {
      */
     public JenkinsLogWatcher(String id, InputStream pipe, File logFile, final LogListener printer) throws FileNotFoundException {
         this.logFile = logFile;
-        this.pipe = new TeeInputStream(pipe,new FileOutputStream(logFile));
+        this.pipe = pipe;
 
-        splitter.addLogListener(printer);
+        sinks.addLogListener(new LogFileWriter(logFile));
+        sinks.addLogListener(printer);
         splitter.addLogListener(watcher);
+        async = new AsyncLogListener("Log writer: "+id, sinks);
+        splitter.addLogListener(async);
         reader = new Thread(new LogReader(this.pipe,splitter),"Log reader: "+id);
 
         ready = watcher.watch(Pattern.compile("Jenkins is fully up and running"));
@@ -88,6 +105,19 @@ public class JenkinsLogWatcher implements LogListenable, Closeable {
         }
     }
 
+    /**
+     * Wait for the lines read so far to be written to {@link #logFile}.
+     */
+    public void flush() {
+        try {
+            if (!async.drain(10, SECONDS)) {
+                LOGGER.warning("Log is still being written to " + logFile);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Block until Jenkins is up and running
      */
@@ -108,14 +138,30 @@ public class JenkinsLogWatcher implements LogListenable, Closeable {
         String msg = getClass()+": Could not bring up a Jenkins server";
         msg += "\nprocess is " + (reader.isAlive() ? "alive" : "dead");
         msg += "\nnow = " + new Date();
+        flush();
         try {
-            msg += "\n" + FileUtils.readFileToString(logFile);
+            msg += "\n" + tail(logFile, MESSAGE_LOG_TAIL);
         } catch (IOException _) {
             // ignore
         }
         return msg;
     }
 
+    /**
+     * Read the end of the log, the whole log is in the diagnostics.
+     */
+    /*package*/ static String tail(File log, int size) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(log, "r")) {
+            long length = in.length();
+            long skip = Math.max(0, length - size);
+            byte[] buf = new byte[(int) (length - skip)];
+            in.seek(skip);
+            in.readFully(buf);
+            String tail = new String(buf, StandardCharsets.UTF_8);
+            return skip == 0 ? tail : "[... " + skip + " bytes skipped ...]\n" + tail;
+        }
+    }
+
     @Override
     public void addLogListener(LogListener l) {
         splitter.addLogListener(l);
@@ -125,4 +171,6 @@ public class JenkinsLogWatcher implements LogListenable, Closeable {
     public void removeLogListener(LogListener l) {
         splitter.removeLogListener(l);
     }
+
+    private static final Logger LOGGER = Logger.getLogger(JenkinsLogWatcher.class.getName());
 }
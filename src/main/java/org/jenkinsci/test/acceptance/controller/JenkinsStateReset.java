@@ -0,0 +1,175 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.logging.Logger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Brings running Jenkins back to the state it was in when it was handed to a test, so it can be used by another one.
+ *
+ * <p>
+ * Jobs, views, nodes and queue are removed and system credentials are put back to the baseline by a single Groovy
+ * script. The state that can not be reverted in place is compared with the baseline taken when the instance was fresh:
+ * installed plugins, security and the global configuration, that is the configuration files in JENKINS_HOME such as the
+ * tools, global properties or the system message. In case it differs, or Jenkins does not respond, the reset fails and
+ * the instance should be discarded. Global configuration changed only in memory is not detected.
+ */
+public class JenkinsStateReset {
+    private static final Logger LOGGER = Logger.getLogger(JenkinsStateReset.class.getName());
+
+    /**
+     * Digest of the global configuration files. Credentials are reset in place and the rest of the excluded files change
+     * while Jenkins runs.
+     */
+    private static final String CONFIG_DIGEST = "def md = java.security.MessageDigest.getInstance('SHA-1')\n" +
+            "Jenkins.getInstance().rootDir.listFiles()\n" +
+            "    .findAll { f -> f.name.endsWith('.xml') && !(f.name in ['credentials.xml', 'queue.xml', 'nodeMonitors.xml']) }\n" +
+            "    .sort { f -> f.name }\n" +
+            "    .each { f -> md.update(f.name.getBytes('UTF-8')); md.update(f.bytes) }\n" +
+            "println 'CONFIG_DIGEST ' + md.digest().encodeHex()\n"
+    ;
+
+    /**
+     * Keep the credentials of the baseline to return to them.
+     */
+    private static final String BASELINE = "import jenkins.model.Jenkins\n" +
+            "def j = Jenkins.getInstance()\n" +
+            "def credentials = new File(j.rootDir, 'credentials.xml')\n" +
+            "def baseline = new File(j.rootDir, 'credentials.xml.baseline')\n" +
+            "if (credentials.exists()) baseline.bytes = credentials.bytes else baseline.delete()\n" +
+            CONFIG_DIGEST
+    ;
+
+    private static final String SCRIPT = "import jenkins.model.Jenkins\n" +
+            "def j = Jenkins.getInstance()\n" +
+            "j.queue.clear()\n" +
+            "j.computers.each { c -> c.executors.each { e -> e.interrupt() } }\n" +
+            "j.items.each { i -> i.delete() }\n" +
+            "j.views.findAll { v -> v != j.primaryView }.each { v -> j.deleteView(v) }\n" +
+            "j.nodes.each { n -> j.removeNode(n) }\n" +
+            "j.getExtensionList('com.cloudbees.plugins.credentials.SystemCredentialsProvider').each { p ->\n" +
+            "  def baseline = new File(j.rootDir, 'credentials.xml.baseline')\n" +
+            "  p.domainCredentialsMap.clear()\n" +
+            "  if (baseline.exists()) new hudson.XmlFile(Jenkins.XSTREAM2, baseline).unmarshal(p)\n" +
+            "  p.save()\n" +
+            "}\n" +
+            CONFIG_DIGEST +
+            "println 'RESET_DONE'\n"
+    ;
+
+    /**
+     * State that has to be the same before and after the test for the reset to be sufficient, apart from the global
+     * configuration files.
+     */
+    private static final String[] FINGERPRINT = {
+            "pluginManager/api/json?tree=plugins[shortName,version,active]",
+            "api/json?tree=useSecurity,numExecutors,mode,quietingDown"
+    };
+
+    private final URL url;
+    private final String baseline;
+
+    private JenkinsStateReset(URL url, String baseline) {
+        this.url = url;
+        this.baseline = baseline;
+    }
+
+    /**
+     * Take the baseline of freshly started Jenkins.
+     */
+    public static @Nonnull JenkinsStateReset of(@Nonnull URL url) throws IOException {
+        HttpClient client = new DefaultHttpClient();
+        try {
+            String baseline = fingerprint(client, url) + configDigest(execute(client, url, BASELINE));
+            return new JenkinsStateReset(url, baseline);
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
+    /**
+     * Attempt to reset the instance.
+     *
+     * @return true if the instance was reset and can be reused, false if it needs to be discarded.
+     */
+    public boolean reset() {
+        HttpClient client = new DefaultHttpClient();
+        try {
+            String out = execute(client, url, SCRIPT);
+            if (!out.contains("RESET_DONE")) {
+                LOGGER.info("Jenkins " + url + " reset failed:\n" + out);
+                return false;
+            }
+
+            // Compared once the reset is done as removing views saves the global configuration
+            String current = fingerprint(client, url) + configDigest(out);
+            if (!baseline.equals(current)) {
+                LOGGER.info("Jenkins " + url + " can not be reset, state changed from " + baseline + " to " + current);
+                return false;
+            }
+            return true;
+        } catch (IOException ex) {
+            LOGGER.info("Jenkins " + url + " is not healthy: " + ex);
+            return false;
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
+    private static String fingerprint(HttpClient client, URL url) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String path : FINGERPRINT) {
+            HttpResponse response = client.execute(new HttpGet(url + path));
+            String body = EntityUtils.toString(response.getEntity());
+            if (response.getStatusLine().getStatusCode() != 200) {
+                throw new IOException("Failed to read " + url + path + ": " + response.getStatusLine());
+            }
+            sb.append(body).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String execute(HttpClient client, URL url, String script) throws IOException {
+        HttpPost post = new HttpPost(url + "scriptText");
+        post.setEntity(new UrlEncodedFormEntity(Collections.singletonList(new BasicNameValuePair("script", script)), "UTF-8"));
+        JsonNode crumb = crumb(client, url);
+        if (crumb != null) {
+            post.addHeader(crumb.get("crumbRequestField").asText(), crumb.get("crumb").asText());
+        }
+        HttpResponse response = client.execute(post);
+        String out = EntityUtils.toString(response.getEntity());
+        if (response.getStatusLine().getStatusCode() != 200) {
+            throw new IOException("Failed to run script on " + url + ": " + response.getStatusLine() + "\n" + out);
+        }
+        return out;
+    }
+
+    private static String configDigest(String out) throws IOException {
+        for (String line : out.split("\n")) {
+            if (line.startsWith("CONFIG_DIGEST ")) return line.trim() + '\n';
+        }
+        throw new IOException("No digest of global configuration in: " + out);
+    }
+
+    /*package*/ static @CheckForNull JsonNode crumb(HttpClient client, URL url) throws IOException {
+        HttpResponse response = client.execute(new HttpGet(url + "crumbIssuer/api/json"));
+        String body = EntityUtils.toString(response.getEntity());
+        if (response.getStatusLine().getStatusCode() != 200) return null;
+        return new ObjectMapper().readTree(body);
+    }
+}
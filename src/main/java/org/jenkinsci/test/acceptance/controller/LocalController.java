@@ -10,25 +10,36 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.lang.reflect.Field;
 import java.net.ServerSocket;
+import java.net.URL;
 import java.nio.file.CopyOption;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
 import org.codehaus.plexus.util.Expand;
 import org.codehaus.plexus.util.StringUtils;
 import org.jenkinsci.test.acceptance.junit.FailureDiagnostics;
 import org.jenkinsci.test.acceptance.log.LogListenable;
 import org.jenkinsci.test.acceptance.log.LogListener;
+import org.jenkinsci.test.acceptance.update_center.UpdateCenterMirror;
 import org.jenkinsci.utils.process.CommandBuilder;
 import org.jenkinsci.utils.process.ProcessInputStream;
 import org.junit.runners.model.MultipleFailureException;
 import org.openqa.selenium.TimeoutException;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.github.olivergondza.dumpling.factory.PidRuntimeFactory;
 import com.github.olivergondza.dumpling.model.ModelObject;
 import com.github.olivergondza.dumpling.model.dump.ThreadDumpRuntime;
@@ -67,12 +78,40 @@ public abstract class LocalController extends JenkinsController implements LogLi
 
     private final File logFile;
 
+    /**
+     * Ports from {@link PortLeases} to return on tear down.
+     */
+    private final List<Integer> leasedPorts = new ArrayList<>();
+
     @Inject @Named("form-element-path.hpi")
     private File formElementPathPlugin;
 
     @Inject
     private Injector injector;
 
+    @Inject
+    private JenkinsHomeSnapshots snapshots;
+
+    @Inject
+    private UpdateCenterMirror updateCenterMirror;
+
+    @Inject
+    private ExplodedArtifactCache explodedCache;
+
+    /**
+     * Directory with plugins to be put into every JENKINS_HOME, if any.
+     */
+    private File givenPluginDir;
+
+    private List<String> snapshotPlugins = Collections.emptyList();
+    private String snapshotKey;
+    private boolean restoredFromSnapshot;
+
+    /**
+     * Whether the home was either restored from a snapshot or set up from scratch.
+     */
+    private boolean homeSetUp;
+
     /**
      * Flag to indicate if the install wizard should be run
      */
@@ -101,10 +140,7 @@ public abstract class LocalController extends JenkinsController implements LogLi
     public void postConstruct(Injector injector) {
         super.postConstruct(injector);
 
-        File pluginDir = new File(tempDir,"plugins");
-        pluginDir.mkdirs();
-
-        File givenPluginDir = null;
+        givenPluginDir = null;
         for (String d : Arrays.asList(
                 getenv("PLUGINS_DIR"),
                 new File(war.getParentFile(), "plugins").getAbsolutePath(),
@@ -119,6 +155,16 @@ public abstract class LocalController extends JenkinsController implements LogLi
             }
         }
 
+        // When restoring from snapshot, the plugins are already there
+        if (!snapshots.isEnabled()) {
+            copyGivenPlugins();
+        }
+    }
+
+    private void copyGivenPlugins() {
+        File pluginDir = new File(tempDir,"plugins");
+        pluginDir.mkdirs();
+
         if (givenPluginDir != null && givenPluginDir.isDirectory()) {
             try {
                 FileUtils.copyDirectory(givenPluginDir, pluginDir);
@@ -138,6 +184,82 @@ public abstract class LocalController extends JenkinsController implements LogLi
         }
     }
 
+    /**
+     * Declare the plugins the test is going to require so the JENKINS_HOME can be restored from a snapshot that has
+     * them installed already.
+     *
+     * Needs to be called before the controller is started for the first time. No-op unless {@link JenkinsHomeSnapshots}
+     * are enabled.
+     */
+    public void setSnapshotPlugins(@Nonnull Collection<String> pluginSpecs) {
+        snapshotPlugins = new ArrayList<>(pluginSpecs);
+    }
+
+    /**
+     * Capture the current JENKINS_HOME for later tests with the same setup.
+     *
+     * No-op when {@link JenkinsHomeSnapshots} are disabled, when the home was restored from a snapshot, when the install
+     * wizard is run or when not running. Jenkins is quieted down while its home is copied.
+     */
+    public void captureHomeSnapshot() {
+        if (snapshotKey == null || restoredFromSnapshot || !isRunning()) return;
+
+        HttpClient client = new DefaultHttpClient();
+        try {
+            post(client, "quietDown");
+            try {
+                snapshots.capture(snapshotKey, getJenkinsHome());
+            } finally {
+                post(client, "cancelQuietDown");
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to capture JENKINS_HOME snapshot " + snapshotKey, e);
+        } finally {
+            client.getConnectionManager().shutdown();
+        }
+    }
+
+    private void post(HttpClient client, String path) throws IOException {
+        URL url = getUrl();
+        HttpPost post = new HttpPost(url + path);
+        JsonNode crumb = JenkinsStateReset.crumb(client, url);
+        if (crumb != null) {
+            post.addHeader(crumb.get("crumbRequestField").asText(), crumb.get("crumb").asText());
+        }
+        HttpResponse response = client.execute(post);
+        EntityUtils.consume(response.getEntity());
+        if (response.getStatusLine().getStatusCode() >= 400) {
+            throw new IOException("Failed to post to " + url + path + ": " + response.getStatusLine());
+        }
+    }
+
+    /**
+     * @return true if the JENKINS_HOME was restored from a snapshot.
+     */
+    public boolean isRestoredFromSnapshot() {
+        return restoredFromSnapshot;
+    }
+
+    @Override
+    public void start() throws IOException {
+        if (snapshots.isEnabled() && !homeSetUp) {
+            homeSetUp = true;
+            // The snapshots are taken with the install wizard skipped
+            if (!runInstallWizard) {
+                snapshotKey = snapshots.key(
+                        war, givenPluginDir, snapshotPlugins, getClass().getName() + " " + getenv("JENKINS_JAVA_OPTS")
+                );
+                restoredFromSnapshot = snapshots.restore(snapshotKey, tempDir);
+            }
+            if (restoredFromSnapshot) {
+                LOGGER.info("Restored JENKINS_HOME from snapshot " + snapshotKey);
+            } else {
+                copyGivenPlugins();
+            }
+        }
+        super.start();
+    }
+
     @Override
     public void addLogListener(LogListener l) {
         logWatcher.addLogListener(l);
@@ -172,12 +294,13 @@ public abstract class LocalController extends JenkinsController implements LogLi
 
     @Override
     public void populateJenkinsHome(byte[] _template, boolean clean) throws IOException {
+        File home = getJenkinsHome();
         try {
-            if (clean && tempDir.isDirectory()) {
-                FileUtils.cleanDirectory(tempDir);
+            if (clean && home.isDirectory()) {
+                FileUtils.cleanDirectory(home);
             }
-            if (!tempDir.isDirectory() && ! tempDir.mkdirs()) {
-                throw new IOException("Could not create directory: " + tempDir);
+            if (!home.isDirectory() && ! home.mkdirs()) {
+                throw new IOException("Could not create directory: " + home);
             }
             File template = File.createTempFile("template", ".dat");
             try {
@@ -185,16 +308,29 @@ public abstract class LocalController extends JenkinsController implements LogLi
                 Expand expand = new Expand();
                 expand.setSrc(template);
                 expand.setOverwrite(true);
-                expand.setDest(tempDir);
+                expand.setDest(home);
                 expand.execute();
             } finally {
                 template.delete();
             }
+            if (updateCenterMirror.isEnabled() && isOnLocalHost()) {
+                updateCenterMirror.seed(home, war);
+            }
+            if (explodedCache.isEnabled()) {
+                explodedCache.linkPlugins(home);
+            }
         } catch (Exception e) {
             throw new IOException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Whether Jenkins runs directly on this host, so it can reach the services the harness binds to the loopback
+     * interface.
+     */
+    public boolean isOnLocalHost() {
+        return true;
+    }
 
     public File getJavaHome() {
         String javaHome = getenv("JENKINS_JAVA_HOME");
@@ -283,11 +419,26 @@ public abstract class LocalController extends JenkinsController implements LogLi
 
     @Override
     public void tearDown(){
+        synchronized (leasedPorts) {
+            for (int port : leasedPorts) {
+                PortLeases.get().release(port);
+            }
+            leasedPorts.clear();
+        }
+
         try {
             if (logger != null) {
                 logger.close();
             }
 
+            if (explodedCache.isEnabled()) {
+                try {
+                    explodedCache.capturePlugins(getJenkinsHome());
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to cache exploded plugins of " + getJenkinsHome(), e);
+                }
+            }
+
             FileUtils.forceDelete(tempDir);
         } catch (IOException e) {
             System.out.println("Cleaning up temporary JENKINS_HOME failed, retrying in 5 sec.");
@@ -340,8 +491,22 @@ public abstract class LocalController extends JenkinsController implements LogLi
         }
     }
 
+    /**
+     * Gives available port leased by this JVM, so no other test JVM on the machine can get it.
+     *
+     * The port is returned to the {@link PortLeases} on {@link #tearDown()}.
+     */
     protected int randomLocalPort(){
-        return randomLocalPort(-1,-1);
+        try {
+            int port = PortLeases.get().acquire();
+            synchronized (leasedPorts) {
+                leasedPorts.add(port);
+            }
+            return port;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to lease port, picking a random one", e);
+            return randomLocalPort(-1,-1);
+        }
     }
 
     private void diagnoseFailedLoad(Exception cause) throws IOException {
@@ -352,10 +517,10 @@ public abstract class LocalController extends JenkinsController implements LogLi
             cause = ex;
         }
 
-        // Copy log to diagnostics
+        // Copy log to diagnostics, including the lines with the cause
+        logWatcher.flush();
         FailureDiagnostics diagnostics = injector.getInstance(FailureDiagnostics.class);
-        File log = diagnostics.touch("jenkins.log");
-        Files.copy(logFile.toPath(), log.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        diagnostics.copy("jenkins.log", logFile);
 
         throw (cause instanceof IOException)
                 ? (IOException) cause
@@ -407,7 +572,7 @@ public abstract class LocalController extends JenkinsController implements LogLi
         return null;
     }
 
-    private boolean isFreePort(int port){
+    protected boolean isFreePort(int port){
         try {
             ServerSocket ss = new ServerSocket(port);
             ss.close();
@@ -0,0 +1,167 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.ServerSocket;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.logging.Logger;
+
+/**
+ * Local ports leased so that the JVMs running tests on the machine never pick the same one.
+ *
+ * <p>
+ * The range of ports is split into blocks. A JVM leases a block by locking its file in
+ * <tt>$TMPDIR/ath-port-leases</tt> and hands out ports from the blocks it holds. The lock is held until the JVM exits,
+ * so blocks of crashed JVMs get released by the OS. Ports are returned to the JVM's blocks once the controller using
+ * them is torn down. Ports used by processes outside of the harness are skipped.
+ */
+public final class PortLeases {
+    private static final Logger LOGGER = Logger.getLogger(PortLeases.class.getName());
+
+    private static final PortLeases INSTANCE = new PortLeases(
+            new File(System.getProperty("java.io.tmpdir"), "ath-port-leases"), 49152, 65536, 64, PortLeases::isFree
+    );
+
+    private final File dir;
+    private final int from;
+    private final int to;
+    private final int blockSize;
+
+    /**
+     * Tells whether the port is not used by any process.
+     */
+    private final IntPredicate probe;
+
+    /**
+     * Blocks leased by this JVM.
+     */
+    private final Set<Integer> blocks = new HashSet<>();
+
+    /**
+     * Ports from the leased blocks that are not handed out, the least recently used first.
+     */
+    private final Deque<Integer> free = new ArrayDeque<>();
+
+    private final Set<Integer> handedOut = new HashSet<>();
+
+    public static PortLeases get() {
+        return INSTANCE;
+    }
+
+    /*package*/ PortLeases(File dir, int from, int to, int blockSize, IntPredicate probe) {
+        this.dir = dir;
+        this.from = from;
+        this.to = to;
+        this.blockSize = blockSize;
+        this.probe = probe;
+    }
+
+    /**
+     * Hand out a port no other JVM can get until it is {@linkplain #release released}.
+     *
+     * @throws IOException when the leases can not be used or all blocks are leased.
+     */
+    public synchronized int acquire() throws IOException {
+        int used = 0;
+        while (true) {
+            if (used >= free.size()) {
+                // Nothing left in the blocks
+                lease();
+                used = 0;
+            }
+            int port = free.poll();
+            if (probe.test(port)) {
+                handedOut.add(port);
+                return port;
+            }
+            LOGGER.info(String.format("Port %s is used outside of the harness", port));
+            free.add(port);
+            used++;
+        }
+    }
+
+    /**
+     * Hand out the particular port, such as the one a restored process keeps listening on.
+     *
+     * @return false if the port is handed out already, used outside of the harness or its block is leased by other JVM.
+     */
+    public synchronized boolean acquire(int port) throws IOException {
+        int block = (port - from) / blockSize;
+        if (port < from || block >= (to - from) / blockSize) return probe.test(port);
+
+        if (!blocks.contains(block) && !lease(block)) return false;
+        if (handedOut.contains(port) || !probe.test(port)) return false;
+
+        free.remove(port);
+        handedOut.add(port);
+        return true;
+    }
+
+    /**
+     * Make the port available to this JVM again.
+     */
+    public synchronized void release(int port) {
+        if (handedOut.remove(port)) {
+            // Reused as late as possible, the socket might still be closing
+            free.add(port);
+        }
+    }
+
+    /**
+     * Lock a block no other JVM holds.
+     */
+    private void lease() throws IOException {
+        int count = (to - from) / blockSize;
+        // Start at random block so the JVMs do not contend for the first ones
+        int first = new Random().nextInt(count);
+        for (int i = 0; i < count; i++) {
+            int block = (first + i) % count;
+            if (!blocks.contains(block) && lease(block)) return;
+        }
+        throw new IOException("All ports in " + from + "-" + (to - 1) + " are leased, see " + dir);
+    }
+
+    /**
+     * @return false if the block is held by other JVM.
+     */
+    private boolean lease(int block) throws IOException {
+        Files.createDirectories(dir.toPath());
+        RandomAccessFile file = new RandomAccessFile(new File(dir, "block-" + block + ".lock"), "rw");
+        FileLock lock;
+        try {
+            lock = file.getChannel().tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // Held by other instance in this JVM
+        }
+        if (lock == null) {
+            file.close();
+            return false;
+        }
+
+        // The file stays open for the lock to be held until the JVM exits
+        blocks.add(block);
+        int start = from + block * blockSize;
+        for (int port = start; port < start + blockSize; port++) {
+            free.add(port);
+        }
+        LOGGER.fine(String.format("Leased ports %d-%d", start, start + blockSize - 1));
+        return true;
+    }
+
+    private static boolean isFree(int port) {
+        try (ServerSocket ss = new ServerSocket(port)) {
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+}
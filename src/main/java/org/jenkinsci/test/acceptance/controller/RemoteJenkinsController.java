@@ -148,6 +148,9 @@ public class RemoteJenkinsController extends JenkinsController {
         cause.printStackTrace();
         out.println("It looks like there was an error, here's the console from Jenkins:");
         out.println("--------------------------------------------------------------------------");
+        if (logWatcher != null) {
+            logWatcher.flush();
+        }
         out.println(FileUtils.fileRead(logFile));
     }
 
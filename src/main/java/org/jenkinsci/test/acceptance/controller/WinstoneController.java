@@ -5,11 +5,14 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
 
 import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.test.acceptance.junit.Timings;
 import org.jenkinsci.utils.process.CommandBuilder;
 import org.jenkinsci.utils.process.ProcessInputStream;
 
@@ -41,6 +44,17 @@ public class WinstoneController extends LocalController {
     private final int httpPort;
     private final int controlPort;
 
+    @Inject
+    private ExplodedArtifactCache explodedCache;
+
+    @Inject
+    private ClassDataSharing classDataSharing;
+
+    /**
+     * Launch profile of the running instance, if any.
+     */
+    private ClassDataSharing.Profile profile;
+
     @Inject
     public WinstoneController(Injector i) {
         super(i);
@@ -50,26 +64,71 @@ public class WinstoneController extends LocalController {
 
     @Override
     public ProcessInputStream startProcess() throws IOException{
+        CommandBuilder cb = new CommandBuilder();
+        cb.addAll(launchArguments());
+        cb.env.putAll(commonLaunchEnv());
+        LOGGER.info("Starting Jenkins: " + cb.toString());
+        return cb.popen();
+    }
+
+    /**
+     * Command line to run Jenkins with.
+     */
+    protected List<String> launchArguments() throws IOException {
         File javaHome = getJavaHome();
         String java = javaHome == null ? "java" : String.format("%s/bin/java",javaHome.getAbsolutePath());
-        CommandBuilder cb = new CommandBuilder(java);
+        if (explodedCache.isEnabled()) {
+            explodedCache.linkWar(war, getJenkinsHome());
+        }
+        List<String> args = new ArrayList<>();
+        args.add(java);
+        profile = null;
+        if (classDataSharing.isEnabled()) {
+            profile = classDataSharing.profile(java, war, new File(getJenkinsHome(), "plugins"),
+                    JAVA_OPTS == null ? Collections.<String>emptyList() : JAVA_OPTS
+            );
+            if (profile != null) {
+                args.addAll(profile.getOptions());
+            }
+        }
         if(JAVA_OPTS != null && !JAVA_OPTS.isEmpty()) {
-            cb.addAll(JAVA_OPTS);
+            args.addAll(JAVA_OPTS);
         }
-        cb.add(
+        args.addAll(Arrays.asList(
                 "-Duser.language=en",
-                "-jar", war,
+                "-jar", war.getPath(),
+                "--webroot=" + new File(getJenkinsHome(), "war"),
                 "--ajp13Port=-1",
-                "--httpPort=" + httpPort);
-        cb.env.putAll(commonLaunchEnv());
-        LOGGER.info("Starting Jenkins: " + cb.toString());
-        return cb.popen();
+                "--httpPort=" + getHttpPort()));
+        return args;
+    }
+
+    protected int getHttpPort() {
+        return httpPort;
+    }
+
+    @Override
+    public void startNow() throws IOException {
+        long start = System.nanoTime();
+        super.startNow();
+        if (profile != null) {
+            // Boots with and without the archive are reported separately so they can be compared
+            Timings.get().record(profile.getPhase(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void stopNow() throws IOException {
+        super.stopNow();
+        if (profile != null) {
+            profile.publish(process.getProcess());
+        }
     }
 
     @Override
     public URL getUrl() {
         try {
-            return new URL(String.format("http://" + getSutHostName() + ":%s/",httpPort));
+            return new URL(String.format("http://" + getSutHostName() + ":%s/",getHttpPort()));
         } catch (MalformedURLException e) {
             throw new RuntimeException(e);
         }
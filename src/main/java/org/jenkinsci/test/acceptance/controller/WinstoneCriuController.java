@@ -0,0 +1,468 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import javax.annotation.CheckForNull;
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.test.acceptance.update_center.UpdateCenterMirror;
+import org.jenkinsci.utils.process.CommandBuilder;
+import org.jenkinsci.utils.process.ProcessInputStream;
+
+import com.cloudbees.sdk.extensibility.Extension;
+import com.google.inject.Injector;
+
+/**
+ * Launches Jenkins via "java -jar jenkins.war" and provisions later instances by restoring a checkpoint of a booted one.
+ *
+ * <p>
+ * The first instance for particular war, plugins and JVM options boots as usual and is checkpointed by
+ * <a href="https://criu.org/">CRIU</a> once it is fully up. Later instances restore the checkpoint instead of booting.
+ * A restored process keeps the paths and the port it was checkpointed with, so every checkpoint has its slot in
+ * <tt>$WORKSPACE/criu/&lt;key&gt;/&lt;index&gt;</tt> with a fixed port and a JENKINS_HOME that is reset from the copy
+ * taken at checkpoint time before every restore. Only one instance can use the slot at a time, so there are
+ * <tt>CRIU_SLOTS</tt> (4 by default) slots for every key, each checkpointed by the first instance using it. Instances
+ * finding all the slots in use, as well as instances where CRIU fails, boot as {@link WinstoneController} does.
+ *
+ * <p>
+ * The port of the slot is leased from {@link PortLeases} for as long as the slot is used, so no other JVM hands it out
+ * while the restored process listens on it. Slots whose port is leased by other JVM are skipped.
+ *
+ * <p>
+ * Jenkins seeded from {@link UpdateCenterMirror} keeps talking to the mirror of the JVM it was checkpointed by, so the
+ * mirror is part of the key and such checkpoints are restored only by the same JVM.
+ *
+ * <p>
+ * Restored process can not be moved to other port or home, which is why the slots are checkpointed separately rather
+ * than cloned from one checkpoint.
+ *
+ * <p>
+ * Jenkins started again by the same controller boots from the home it was using, so the state is preserved.
+ *
+ * <p>
+ * Linux only. The <tt>criu</tt> binary, or the command given by <tt>CRIU</tt> environment variable such as
+ * <tt>sudo -n criu</tt>, needs to have the privileges to checkpoint and restore.
+ */
+public class WinstoneCriuController extends WinstoneController {
+    private static final List<String> CRIU = Collections.unmodifiableList(Arrays.asList(
+            (System.getenv("CRIU") == null ? "criu" : System.getenv("CRIU")).trim().split("\\s+")
+    ));
+
+    private static final int SLOTS = Integer.parseInt(System.getenv("CRIU_SLOTS") == null ? "4" : System.getenv("CRIU_SLOTS"));
+
+    private static Boolean supported;
+
+    @Inject
+    private UpdateCenterMirror updateCenterMirror;
+
+    /**
+     * Slot used by this instance, null when booting regularly.
+     */
+    private Slot slot;
+
+    /**
+     * Started from the slot already so the next start must not reset the home.
+     */
+    private boolean started;
+
+    private final Thread shutdownHook = new Thread() {
+        @Override
+        public void run() {
+            if (slot != null) {
+                slot.kill();
+            }
+        }
+    };
+
+    @Inject
+    public WinstoneCriuController(Injector i) {
+        super(i);
+    }
+
+    @Override
+    public void startNow() throws IOException {
+        if (slot == null && !started && isSupported()) {
+            slot = Slot.acquire(new File(WORKSPACE, "criu/" + key()), SLOTS, PortLeases.get());
+        }
+        if (slot == null) {
+            super.startNow();
+            return;
+        }
+
+        try {
+            boolean checkpoint = !started && !slot.isComplete();
+            super.startNow();
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            if (checkpoint) {
+                checkpoint();
+            }
+        } catch (IOException|RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to provision Jenkins using CRIU, booting regularly", e);
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            release();
+            if (process != null) {
+                super.stopNow();
+            }
+            super.startNow();
+        }
+        started = true;
+    }
+
+    @Override
+    public ProcessInputStream startProcess() throws IOException {
+        if (slot == null) return super.startProcess();
+
+        if (started) {
+            // Do not mistake the previous run for this one
+            Files.deleteIfExists(slot.getLog().toPath());
+            launch();
+        } else if (slot.isComplete()) {
+            if (!isFreePort(slot.readPort())) {
+                throw new IOException("Port " + slot.readPort() + " of the checkpoint is in use");
+            }
+            slot.reset();
+            criu("restore", "-D", slot.image.getPath(), "-o", "restore.log",
+                    "--restore-detached", "--tcp-close", "--file-locks", "--ext-unix-sk"
+            );
+            LOGGER.info("Restored Jenkins from " + slot.image);
+        } else {
+            // Running from the slot from now on
+            FileUtils.deleteDirectory(slot.work);
+            FileUtils.copyDirectory(tempDir, slot.getHome());
+            FileUtils.writeStringToFile(slot.port, Integer.toString(slot.leasePort()), StandardCharsets.UTF_8);
+            launch();
+        }
+
+        // Restored process logs into the same file
+        return new CommandBuilder("tail").add("-n", "+1", "-F", slot.getLog()).popen();
+    }
+
+    /**
+     * Run Jenkins detached from the harness with stdout and stderr in a file so it can be checkpointed.
+     */
+    private void launch() throws IOException {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "setsid", "sh", "-c", "echo $$ > \"$1\"; log=\"$2\"; shift 2; exec \"$@\" >> \"$log\" 2>&1 < /dev/null",
+                "jenkins", slot.getPid().getPath(), slot.getLog().getPath()
+        ));
+        args.addAll(launchArguments());
+
+        CommandBuilder cb = new CommandBuilder();
+        cb.addAll(args);
+        cb.env.putAll(commonLaunchEnv());
+        LOGGER.info("Starting Jenkins: " + cb.toString());
+        cb.popen();
+    }
+
+    /**
+     * Checkpoint the booted instance and restore it right away, so the checkpoint is known to work.
+     */
+    private void checkpoint() throws IOException {
+        FileUtils.deleteDirectory(slot.image);
+        Files.createDirectories(slot.image.toPath());
+        // Stops the process
+        criu("dump", "-t", Integer.toString(slot.readPid()), "-D", slot.image.getPath(), "-o", "dump.log",
+                "--tcp-established", "--file-locks", "--ext-unix-sk"
+        );
+        FileUtils.deleteDirectory(slot.template);
+        FileUtils.copyDirectory(slot.work, slot.template);
+        FileUtils.touch(slot.complete);
+        LOGGER.info("Checkpointed Jenkins to " + slot.image);
+
+        criu("restore", "-D", slot.image.getPath(), "-o", "restore.log",
+                "--restore-detached", "--tcp-close", "--file-locks", "--ext-unix-sk"
+        );
+    }
+
+    @Override
+    public void stopNow() throws IOException {
+        if (slot != null) {
+            slot.kill();
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }
+        super.stopNow();
+    }
+
+    @Override
+    public void tearDown() {
+        try {
+            super.tearDown();
+        } finally {
+            release();
+        }
+    }
+
+    private void release() {
+        if (slot != null) {
+            slot.kill();
+            slot.release();
+            slot = null;
+        }
+    }
+
+    @Override
+    public File getJenkinsHome() {
+        return slot == null ? super.getJenkinsHome() : slot.getHome();
+    }
+
+    @Override
+    protected int getHttpPort() {
+        return slot == null ? super.getHttpPort() : slot.readPort();
+    }
+
+    private String key() throws IOException {
+        String mirror = updateCenterMirror.isEnabled() && isOnLocalHost() ? updateCenterMirror.getSeedId() : null;
+        return key(war, new File(tempDir, "plugins"), getJavaHome(), System.getenv("JENKINS_JAVA_OPTS"), mirror);
+    }
+
+    /**
+     * Identify everything that is baked into the booted process.
+     *
+     * @param mirror Identity of the update center mirror the home is seeded from, if any.
+     */
+    /*package*/ static String key(File war, File plugins, File javaHome, @CheckForNull String javaOpts, @CheckForNull String mirror) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("war:").append(ExplodedArtifactCache.checksum(war)).append('\n');
+        File[] files = plugins.listFiles();
+        if (files != null) {
+            Arrays.sort(files);
+            for (File f : files) {
+                sb.append("plugin:").append(f.getName()).append(':').append(f.length()).append('\n');
+            }
+        }
+        sb.append("java:").append(javaHome).append('\n');
+        sb.append("opts:").append(javaOpts).append('\n');
+        if (mirror != null) {
+            sb.append("mirror:").append(mirror).append('\n');
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            Formatter formatter = new Formatter();
+            for (byte b : digest) {
+                formatter.format("%02x", b);
+            }
+            return formatter.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void criu(String... args) throws IOException {
+        CommandBuilder cb = new CommandBuilder();
+        cb.addAll(CRIU);
+        cb.add((Object[]) args);
+        try {
+            int status = cb.system();
+            if (status != 0) {
+                throw new IOException("Failed to run " + cb + ": " + status);
+            }
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static synchronized boolean isSupported() {
+        if (supported == null) {
+            supported = false;
+            if (new File("/proc/self").exists()) {
+                try {
+                    criu("check");
+                    supported = true;
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "CRIU is not usable, booting Jenkins regularly", e);
+                }
+            }
+        }
+        return supported;
+    }
+
+    /**
+     * Directory of a checkpoint with everything the restored process expects to find in place.
+     */
+    /*package*/ static final class Slot {
+        private final File image;
+        private final File work;
+        private final File template;
+        private final File port;
+        private final File complete;
+        private final RandomAccessFile lockFile;
+        private final FileLock lock;
+        private final PortLeases leases;
+
+        /**
+         * Port leased for the slot, 0 until leased.
+         */
+        private int leasedPort;
+
+        private Slot(File dir, RandomAccessFile lockFile, FileLock lock, PortLeases leases) {
+            this.image = new File(dir, "image");
+            this.work = new File(dir, "work");
+            this.template = new File(dir, "template");
+            this.port = new File(dir, "port");
+            this.complete = new File(dir, ".complete");
+            this.lockFile = lockFile;
+            this.lock = lock;
+            this.leases = leases;
+        }
+
+        /**
+         * Lock a slot for the key, preferring the checkpointed ones. Checkpointed slots come with their port leased.
+         *
+         * @return null if all the slots are used by other instances.
+         */
+        /*package*/ static @CheckForNull Slot acquire(File keyDir, int count, PortLeases leases) throws IOException {
+            for (boolean checkpointed : new boolean[] {true, false}) {
+                for (int i = 0; i < count; i++) {
+                    File dir = new File(keyDir, Integer.toString(i));
+                    if (new File(dir, ".complete").exists() != checkpointed) continue;
+
+                    Slot slot = acquire(dir, leases);
+                    if (slot == null) continue;
+                    if (checkpointed && !leases.acquire(slot.readPort())) {
+                        // Would not be able to listen on the port
+                        slot.release();
+                        continue;
+                    }
+                    if (checkpointed) {
+                        slot.leasedPort = slot.readPort();
+                    }
+                    return slot;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return null if the slot is used by other instance.
+         */
+        private static Slot acquire(File dir, PortLeases leases) throws IOException {
+            Files.createDirectories(dir.toPath());
+            RandomAccessFile file = new RandomAccessFile(new File(dir, "lock"), "rw");
+            FileLock lock;
+            try {
+                lock = file.getChannel().tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null; // Used by this JVM
+            }
+            if (lock == null) {
+                file.close();
+                return null;
+            }
+            return new Slot(dir, file, lock, leases);
+        }
+
+        /**
+         * Lease a port to checkpoint the slot with.
+         */
+        /*package*/ int leasePort() throws IOException {
+            if (leasedPort == 0) {
+                leasedPort = leases.acquire();
+            }
+            return leasedPort;
+        }
+
+        /*package*/ boolean isComplete() {
+            return complete.exists();
+        }
+
+        /*package*/ File getHome() {
+            return new File(work, "home");
+        }
+
+        private File getLog() {
+            return new File(work, "jenkins.log");
+        }
+
+        private File getPid() {
+            return new File(work, "pid");
+        }
+
+        private int readPid() throws IOException {
+            return Integer.parseInt(FileUtils.readFileToString(getPid(), StandardCharsets.UTF_8).trim());
+        }
+
+        /*package*/ int readPort() {
+            try {
+                return Integer.parseInt(FileUtils.readFileToString(port, StandardCharsets.UTF_8).trim());
+            } catch (IOException e) {
+                throw new IllegalStateException("No port assigned to " + port.getParent(), e);
+            }
+        }
+
+        /**
+         * Put the files back to the state they were checkpointed in, the restore fails otherwise.
+         */
+        private void reset() throws IOException {
+            FileUtils.deleteDirectory(work);
+            FileUtils.copyDirectory(template, work);
+        }
+
+        /**
+         * Terminate the process running from the slot, if any.
+         */
+        private void kill() {
+            try {
+                if (!getPid().exists()) return;
+                String pid = Integer.toString(readPid());
+                File proc = new File("/proc/" + pid);
+                if (!proc.exists()) return;
+
+                new CommandBuilder("kill", "-TERM", pid).system();
+                for (int i = 0; i < 600 && proc.exists(); i++) {
+                    Thread.sleep(100);
+                }
+                if (proc.exists()) {
+                    new CommandBuilder("kill", "-KILL", pid).system();
+                }
+            } catch (IOException|InterruptedException e) {
+                LOGGER.log(Level.WARNING, "Failed to terminate Jenkins in " + work, e);
+            }
+        }
+
+        /*package*/ void release() {
+            if (leasedPort != 0) {
+                leases.release(leasedPort);
+                leasedPort = 0;
+            }
+            try {
+                lock.release();
+                lockFile.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to release " + work.getParent(), e);
+            }
+        }
+    }
+
+    @Extension
+    public static class FactoryImpl extends LocalFactoryImpl {
+        @Inject Injector i;
+
+        @Override
+        public String getId() {
+            return "winstone_criu";
+        }
+
+        @Override
+        public JenkinsController create() {
+            return i.getInstance(WinstoneCriuController.class);
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(WinstoneCriuController.class.getName());
+}
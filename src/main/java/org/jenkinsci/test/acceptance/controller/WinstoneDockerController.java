@@ -85,6 +85,14 @@ public class WinstoneDockerController extends LocalController {
         }
     }
 
+    /**
+     * The container can not reach the loopback interface of the host.
+     */
+    @Override
+    public boolean isOnLocalHost() {
+        return false;
+    }
+
     public JavaContainer getContainer() {
         return container;
     }
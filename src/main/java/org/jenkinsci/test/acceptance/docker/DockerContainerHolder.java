@@ -29,8 +29,19 @@ public class DockerContainerHolder<T extends DockerContainer> implements Provide
     @Inject
     private FailureDiagnostics diag;
 
+    @Inject
+    private DockerImageCache images;
+
+    @Inject
+    private DockerFixturePool pool;
+
     T container;
 
+    /**
+     * The container was taken from the {@link DockerFixturePool}.
+     */
+    private boolean pooled;
+
     /**
      * Injecting a portOffset will force the binding of dockerPorts to local Ports with an offset
      * (e.g. bind docker 22 to localhost port 40022,
@@ -46,7 +57,13 @@ public class DockerContainerHolder<T extends DockerContainer> implements Provide
     public synchronized T get() {
         if (container==null) {
             try {
-                container = starter().start();
+                // Spare containers can not bind fixed ports
+                if (pool.isEnabled() && portOffset == null) {
+                    container = pool.acquire(fixture());
+                    pooled = true;
+                } else {
+                    container = starter().start();
+                }
             } catch (InterruptedException | IOException e) {
                 throw new Error("Failed to start container - " + type, e);
             }
@@ -58,25 +75,34 @@ public class DockerContainerHolder<T extends DockerContainer> implements Provide
      * Provides a starter directly, so you can customize it a bit before calling {@link Starter#start}.
      */
     public Starter<T> starter() throws IOException, InterruptedException {
-        @SuppressWarnings("unchecked")
-        Class<T> fixture = (Class<T>) type.getRawType();
+        Class<T> fixture = fixture();
         File buildlog = diag.touch("docker-" + fixture.getSimpleName() + ".build.log");
         File runlog = diag.touch("docker-" + fixture.getSimpleName() + ".run.log");
-        Starter<T> containerStarter = docker.build(fixture, buildlog).start(fixture).withLog(runlog);
+        Starter<T> containerStarter = images.build(docker, fixture, buildlog).start(fixture).withLog(runlog);
         if (portOffset != null) {
             containerStarter.withPortOffset(portOffset);
         }
         return containerStarter;
     }
 
+    @SuppressWarnings("unchecked")
+    private Class<T> fixture() {
+        return (Class<T>) type.getRawType();
+    }
+
     /**
      * {@link TestCleaner} will call this at the end of the test automatically
      */
     @Override
     public void close() throws IOException {
         if (container != null) {
-            container.close();
+            if (pooled) {
+                pool.release(container);
+            } else {
+                container.close();
+            }
             container = null;
+            pooled = false;
         }
     }
 }
@@ -0,0 +1,302 @@
+package org.jenkinsci.test.acceptance.docker;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+import org.jenkinsci.test.acceptance.junit.Timings;
+
+/**
+ * Docker fixture containers started ahead of the tests that need them.
+ *
+ * <p>
+ * Once a fixture type is requested, a spare container of that type is started in the background for the next test
+ * to request it, so the test gets the container that has already booted. Fixtures implementing {@link ReusableFixture}
+ * are handed out only once ready and are reused by later tests when they can be reset, other fixtures are discarded
+ * when the test is done with them.
+ *
+ * <p>
+ * Taking the container from the pool is reported as <tt>docker.pool.hit</tt> or <tt>docker.pool.miss</tt>
+ * {@link Timings} phase, where the miss includes the container startup, and the reset as <tt>docker.pool.reset</tt>.
+ * Logs of the pooled containers are in <tt>$WORKSPACE/docker-pool</tt>.
+ *
+ * <p>
+ * Enabled by setting <tt>DOCKER_FIXTURE_POOL=true</tt>, <tt>DOCKER_FIXTURE_POOL_SPARES</tt> sets the number of spare
+ * containers per type (1 by default).
+ */
+@Singleton
+public class DockerFixturePool {
+    private static final Logger LOGGER = Logger.getLogger(DockerFixturePool.class.getName());
+
+    private static final long READY_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Starts the container of given fixture.
+     */
+    /*package*/ interface Launcher {
+        <T extends DockerContainer> T launch(Class<T> fixture) throws IOException, InterruptedException;
+    }
+
+    private final boolean enabled;
+    private final int spares;
+    private final Launcher launcher;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "Docker fixture pool");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /**
+     * Containers ready to be handed out by type.
+     */
+    private final Map<Class<?>, Deque<DockerContainer>> idle = new HashMap<>();
+
+    /**
+     * Number of spare containers being started by type.
+     */
+    private final Map<Class<?>, Integer> starting = new HashMap<>();
+
+    private final Set<DockerContainer> handedOut = Collections.newSetFromMap(new IdentityHashMap<DockerContainer, Boolean>());
+
+    private boolean closed;
+
+    @Inject
+    public DockerFixturePool(final Docker docker, final DockerImageCache images, @Named("WORKSPACE") String workspace, WorldCleaner cleaner) {
+        this(
+                "true".equals(System.getenv("DOCKER_FIXTURE_POOL")),
+                Integer.parseInt(System.getenv("DOCKER_FIXTURE_POOL_SPARES") == null ? "1" : System.getenv("DOCKER_FIXTURE_POOL_SPARES")),
+                new ImageLauncher(docker, images, new File(workspace, "docker-pool"))
+        );
+        if (enabled) {
+            cleaner.addTask(new Runnable() {
+                @Override
+                public void run() {
+                    close();
+                }
+            });
+        }
+    }
+
+    /*package*/ DockerFixturePool(boolean enabled, int spares, Launcher launcher) {
+        this.enabled = enabled;
+        this.spares = spares;
+        this.launcher = launcher;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get a running container of the fixture, starting a new one if there is no spare one.
+     */
+    public <T extends DockerContainer> T acquire(Class<T> fixture) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        DockerContainer spare;
+        synchronized (this) {
+            Deque<DockerContainer> containers = idle.get(fixture);
+            spare = containers == null ? null : containers.poll();
+        }
+
+        T container;
+        if (spare != null) {
+            container = fixture.cast(spare);
+            Timings.get().record("docker.pool.hit", System.nanoTime() - start);
+        } else {
+            try (Timings.Timer t = Timings.get().start("docker.pool.miss")) {
+                container = launcher.launch(fixture);
+            }
+        }
+
+        synchronized (this) {
+            handedOut.add(container);
+        }
+        replenish(fixture);
+        return container;
+    }
+
+    /**
+     * Take the container back from the test, to be reused or discarded.
+     */
+    public void release(DockerContainer container) {
+        synchronized (this) {
+            if (!handedOut.remove(container)) throw new IllegalArgumentException("Not handed out by the pool " + container);
+        }
+
+        if (container instanceof ReusableFixture) {
+            boolean reset;
+            try (Timings.Timer t = Timings.get().start("docker.pool.reset")) {
+                reset = ((ReusableFixture) container).reset();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to reset " + container, e);
+                reset = false;
+            }
+
+            if (reset) {
+                List<DockerContainer> extra = new ArrayList<>();
+                synchronized (this) {
+                    if (!closed) {
+                        Deque<DockerContainer> containers = containers(container.getClass());
+                        containers.push(container);
+                        // The reused one replaces the spare
+                        while (containers.size() > Math.max(spares, 1)) {
+                            extra.add(containers.removeLast());
+                        }
+                    } else {
+                        extra.add(container);
+                    }
+                }
+                for (DockerContainer c : extra) {
+                    discard(c);
+                }
+                return;
+            }
+        }
+
+        discard(container);
+    }
+
+    /**
+     * Discard all idle containers and stop starting new ones.
+     */
+    public void close() {
+        List<DockerContainer> containers = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (Deque<DockerContainer> c : idle.values()) {
+                containers.addAll(c);
+            }
+            idle.clear();
+        }
+        executor.shutdownNow();
+        for (DockerContainer c : containers) {
+            discard(c);
+        }
+    }
+
+    /**
+     * Start spare containers of the type in the background.
+     */
+    private synchronized void replenish(final Class<? extends DockerContainer> fixture) {
+        if (closed) return;
+
+        int available = containers(fixture).size() + (starting.containsKey(fixture) ? starting.get(fixture) : 0);
+        for (int i = available; i < spares; i++) {
+            starting.put(fixture, (starting.containsKey(fixture) ? starting.get(fixture) : 0) + 1);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    DockerContainer container = null;
+                    try {
+                        container = launcher.launch(fixture);
+                        if (!awaitReady(container)) {
+                            LOGGER.warning("Spare " + fixture.getSimpleName() + " container did not get ready in time");
+                            discard(container);
+                            container = null;
+                        }
+                    } catch (IOException|RuntimeException e) {
+                        LOGGER.log(Level.WARNING, "Failed to start spare " + fixture.getSimpleName() + " container", e);
+                    } catch (InterruptedException e) {
+                        // Pool closed
+                        if (container != null) {
+                            discard(container);
+                            container = null;
+                        }
+                    } finally {
+                        boolean discard = false;
+                        synchronized (DockerFixturePool.this) {
+                            starting.put(fixture, starting.get(fixture) - 1);
+                            if (container != null) {
+                                if (closed) {
+                                    discard = true;
+                                } else {
+                                    containers(fixture).add(container);
+                                }
+                            }
+                        }
+                        if (discard) {
+                            discard(container);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /*package*/ synchronized int countIdle(Class<?> fixture) {
+        return containers(fixture).size();
+    }
+
+    private Deque<DockerContainer> containers(Class<?> fixture) {
+        Deque<DockerContainer> containers = idle.get(fixture);
+        if (containers == null) {
+            idle.put(fixture, containers = new ArrayDeque<>());
+        }
+        return containers;
+    }
+
+    private static boolean awaitReady(DockerContainer container) throws InterruptedException {
+        if (!(container instanceof ReusableFixture)) return true;
+
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT;
+        while (!((ReusableFixture) container).isReady()) {
+            if (System.currentTimeMillis() > deadline) return false;
+            Thread.sleep(1000);
+        }
+        return true;
+    }
+
+    private static void discard(DockerContainer container) {
+        try {
+            container.close();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to stop " + container, e);
+        }
+    }
+
+    /**
+     * Starts containers from the cached images, with logs in the pool directory as those outlive the tests.
+     */
+    private static final class ImageLauncher implements Launcher {
+        private final Docker docker;
+        private final DockerImageCache images;
+        private final File logs;
+
+        private ImageLauncher(Docker docker, DockerImageCache images, File logs) {
+            this.docker = docker;
+            this.images = images;
+            this.logs = logs;
+        }
+
+        @Override
+        public <T extends DockerContainer> T launch(Class<T> fixture) throws IOException, InterruptedException {
+            Files.createDirectories(logs.toPath());
+            String name = fixture.getSimpleName();
+            File runlog = File.createTempFile(name, ".run.log", logs);
+            return images.build(docker, fixture, new File(logs, name + ".build.log")).start(fixture).withLog(runlog).start();
+        }
+    }
+}
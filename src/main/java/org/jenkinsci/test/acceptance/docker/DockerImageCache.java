@@ -0,0 +1,203 @@
+package org.jenkinsci.test.acceptance.docker;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Formatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.test.acceptance.junit.Timings;
+
+/**
+ * Images of docker fixtures keyed by the content of the directory with their Dockerfile.
+ *
+ * <p>
+ * The fixture is built once per content of its directory and the directories of the fixtures it extends, later
+ * {@link #build} calls in any JVM using the same workspace just verify the image still exists in docker. The built
+ * image tags are recorded in <tt>$WORKSPACE/docker-images</tt>. {@link DynamicDockerContainer}s are always built as
+ * their Dockerfiles are templates.
+ *
+ * <p>
+ * Enabled by setting <tt>DOCKER_IMAGE_CACHE=true</tt>, {@link Docker#build(Class, File)} is called every time otherwise.
+ */
+@Singleton
+public class DockerImageCache {
+    private static final Logger LOGGER = Logger.getLogger(DockerImageCache.class.getName());
+
+    private final boolean enabled;
+    private final File root;
+
+    /**
+     * Images verified to exist in this JVM by fixture content key.
+     */
+    private final Map<String, DockerImage> images = new ConcurrentHashMap<>();
+
+    @Inject
+    public DockerImageCache(@Named("WORKSPACE") String workspace) {
+        this(new File(workspace, "docker-images"), "true".equals(System.getenv("DOCKER_IMAGE_CACHE")));
+    }
+
+    public DockerImageCache(@Nonnull File root, boolean enabled) {
+        this.root = root;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the image of the fixture, building it only if its content has changed since the last build.
+     */
+    public DockerImage build(
+            @Nonnull Docker docker, @Nonnull Class<? extends DockerContainer> fixture, @CheckForNull File log
+    ) throws IOException, InterruptedException {
+        if (!enabled || DynamicDockerContainer.class.isAssignableFrom(fixture)) return docker.build(fixture, log);
+
+        String key = key(fixture);
+        DockerImage image = images.get(key);
+        if (image != null) return image;
+
+        File record = new File(root, key);
+        if (record.exists()) {
+            String tag = FileUtils.readFileToString(record, StandardCharsets.UTF_8).trim();
+            if (exists(tag)) {
+                image = new DockerImage(tag);
+                images.put(key, image);
+                Timings.get().record("docker.build.cached", 0);
+                return image;
+            }
+        }
+
+        try (Timings.Timer t = Timings.get().start("docker.build")) {
+            image = docker.build(fixture, log);
+        }
+        images.put(key, image);
+
+        Files.createDirectories(root.toPath());
+        File tmp = File.createTempFile(key, ".tmp", root);
+        FileUtils.writeStringToFile(tmp, image.tag, StandardCharsets.UTF_8);
+        Files.move(tmp.toPath(), record.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        LOGGER.info("Built " + image + " for " + fixture.getName());
+        return image;
+    }
+
+    private static boolean exists(String tag) throws IOException, InterruptedException {
+        return Docker.cmd("inspect").add("--type=image", tag).system() == 0;
+    }
+
+    /**
+     * Identify the fixture by its id and the content of its directory on classpath, as well as the directories of the
+     * fixtures it extends as their images are built first.
+     */
+    /*package*/ static String key(Class<? extends DockerContainer> fixture) throws IOException {
+        DockerFixture f = fixture.getAnnotation(DockerFixture.class);
+        if (f == null) throw new IllegalArgumentException(fixture + " is not annotated with @DockerFixture");
+
+        StringBuilder sb = new StringBuilder();
+        for (Class<?> c = fixture; c != null; c = c.getSuperclass()) {
+            DockerFixture declared = c.getDeclaredAnnotation(DockerFixture.class);
+            if (declared != null) {
+                sb.append(declared.id()).append(' ').append(content(c, declared)).append('\n');
+            }
+        }
+        return f.id() + "-" + hex(sha1().digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Digest of the content of the directory with the Dockerfile of the fixture.
+     */
+    private static String content(Class<?> fixture, DockerFixture f) throws IOException {
+
+        String dir = f.dockerfileFolder().isEmpty()
+                ? fixture.getName().replace('.', '/').replace('$', '/')
+                : f.dockerfileFolder().replaceAll("/+$", "");
+        URL url = fixture.getClassLoader().getResource(dir);
+        if (url == null) throw new IOException("No Dockerfile directory " + dir + " for " + fixture.getName());
+
+        // Sort so the order of directory listing does not matter
+        Map<String, String> files = new TreeMap<>();
+        if ("file".equals(url.getProtocol())) {
+            File base;
+            try {
+                base = new File(url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            Collection<File> listed = FileUtils.listFiles(base, null, true);
+            for (File file : listed) {
+                try (InputStream in = Files.newInputStream(file.toPath())) {
+                    files.put(base.toURI().relativize(file.toURI()).getPath(), digest(in));
+                }
+            }
+        } else if ("jar".equals(url.getProtocol())) {
+            JarURLConnection connection = (JarURLConnection) url.openConnection();
+            connection.setUseCaches(false);
+            try (JarFile jar = connection.getJarFile()) {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry e = entries.nextElement();
+                    if (e.isDirectory() || !e.getName().startsWith(dir + "/")) continue;
+                    try (InputStream in = jar.getInputStream(e)) {
+                        files.put(e.getName().substring(dir.length() + 1), digest(in));
+                    }
+                }
+            }
+        } else {
+            throw new IOException("Unable to read " + url);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> e : files.entrySet()) {
+            sb.append(e.getKey()).append(':').append(e.getValue()).append('\n');
+        }
+        return hex(sha1().digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String digest(InputStream in) throws IOException {
+        MessageDigest md = sha1();
+        byte[] buf = new byte[8192];
+        int len;
+        while ((len = in.read(buf)) != -1) {
+            md.update(buf, 0, len);
+        }
+        return hex(md.digest());
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String hex(byte[] digest) {
+        Formatter formatter = new Formatter();
+        for (byte b : digest) {
+            formatter.format("%02x", b);
+        }
+        return formatter.toString();
+    }
+}
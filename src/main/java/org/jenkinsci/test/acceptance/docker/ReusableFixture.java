@@ -0,0 +1,21 @@
+package org.jenkinsci.test.acceptance.docker;
+
+/**
+ * Docker fixture that can be kept running and handed to another test by {@link DockerFixturePool}.
+ *
+ * <p>
+ * Implement this on fixtures the tests do not modify, or can easily revert.
+ */
+public interface ReusableFixture {
+    /**
+     * Check the service in the container accepts requests. Containers are not handed to tests before they are ready.
+     */
+    boolean isReady();
+
+    /**
+     * Bring the container back to the state it was started in, once the test is done with it.
+     *
+     * @return false if it can not be reused, so it is discarded.
+     */
+    boolean reset();
+}
@@ -1,17 +1,23 @@
 package org.jenkinsci.test.acceptance.docker.fixtures;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
 import org.jenkinsci.test.acceptance.docker.DockerContainer;
 import org.jenkinsci.test.acceptance.docker.DockerFixture;
+import org.jenkinsci.test.acceptance.docker.ReusableFixture;
 
 /**
  * openLDAP (slapd) Container with a small user directory.
  * The configuration of this ldap is located next to its Dockerfile.
  * To edit/add users or groups just add them to config/base.ldif and rebuild the image.
+ * Tests only read the directory, so the container is reused.
  *
  * @author Michael Prankl
  */
 @DockerFixture(id = "ldap", ports = {389, 636})
-public class LdapContainer extends DockerContainer {
+public class LdapContainer extends DockerContainer implements ReusableFixture {
 
     public String getHost() {
         return ipBound(389);
@@ -33,4 +39,18 @@ public class LdapContainer extends DockerContainer {
         return "jenkins";
     }
 
+    @Override
+    public boolean isReady() {
+        try (Socket s = new Socket()) {
+            s.connect(new InetSocketAddress(getHost(), getPort()), 1000);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean reset() {
+        return true;
+    }
 }
@@ -4,7 +4,9 @@ import com.google.inject.Key;
 import com.google.inject.Provider;
 import com.google.inject.Scope;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -23,9 +25,11 @@ public class TestLifecycle implements Scope {
 
     /**
      * Call this method when a new test starts, to reset the {@link TestScope}.
+     *
+     * The scope is shared with the threads the test starts, so it is synchronized.
      */
     public void startTestScope() {
-        testScopeObjects.set(new HashMap());
+        testScopeObjects.set(Collections.synchronizedMap(new HashMap()));
     }
 
     public void endTestScope() {
@@ -42,11 +46,29 @@ public class TestLifecycle implements Scope {
         testScopeObjects.set(o);
     }
 
+    /**
+     * Put the instance into the current scope, so it is used instead of creating a new one.
+     */
+    public <T> void put(Key<T> key, T instance) {
+        testScopeObjects.get().put(key, instance);
+    }
+
+    /**
+     * Take the instance out of the current scope, so it is not cleaned up together with the scope.
+     */
+    public <T> T remove(Key<T> key) {
+        Map m = testScopeObjects.get();
+        return m == null ? null : (T) m.remove(key);
+    }
+
     /**
      * Returns already existing instances.
      */
     /*package*/ Collection<Object> getInstances() {
-        return testScopeObjects.get().values();
+        Map m = testScopeObjects.get();
+        synchronized (m) {
+            return new ArrayList<Object>(m.values());
+        }
     }
 
     @Override
@@ -56,10 +78,14 @@ public class TestLifecycle implements Scope {
             public T get() {
                 Map m = testScopeObjects.get();
                 if (m==null)    return null;
-                T v = (T)m.get(key);
-                if (v==null)
-                    m.put(key, v = base.get());
-                return v;
+                // Held while creating so threads of the test get the same instance, the lock is reentrant for
+                // dependencies in the same scope
+                synchronized (m) {
+                    T v = (T)m.get(key);
+                    if (v==null)
+                        m.put(key, v = base.get());
+                    return v;
+                }
             }
         };
     }
@@ -40,7 +40,7 @@ public class World extends AbstractModule {
         return cl;
     }
 
-    public Injector getInjector() {
+    public synchronized Injector getInjector() {
         if (injector==null)
             injector = Guice.createInjector(this);
         return injector;
@@ -106,7 +106,7 @@ public class World extends AbstractModule {
 
     private static World INSTANCE;
 
-    public static World get() {
+    public static synchronized World get() {
         if (INSTANCE==null) {
             INSTANCE = new World(Thread.currentThread().getContextClassLoader());
             Runtime.getRuntime().addShutdownHook(INSTANCE.cleaner);
@@ -0,0 +1,273 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+
+/**
+ * Writes diagnostic files off the test thread.
+ *
+ * <p>
+ * Files are written by a background thread so failing tests are not slowed down by large logs and dumps. The queue is
+ * bounded, the test thread writes the file itself once it is full. Files bigger than {@value #COMPRESS_THRESHOLD} bytes
+ * are gzipped, copied logs are capped to their tail and content identical to a file written before is hard linked to it.
+ * All pending files are written before the JVM exits.
+ *
+ * <p>
+ * Enabled by setting <tt>DIAGNOSTICS_ASYNC=true</tt>, <tt>DIAGNOSTICS_LOG_TAIL_MB</tt> sets the size of the copied log
+ * tail (10 by default). Files are written right away, uncompressed and whole otherwise.
+ */
+@Singleton
+public class DiagnosticsWriter {
+    private static final Logger LOGGER = Logger.getLogger(DiagnosticsWriter.class.getName());
+
+    /*package*/ static final int COMPRESS_THRESHOLD = 64 * 1024;
+
+    private final boolean enabled;
+    private final long logTail;
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(32),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Diagnostics writer");
+                    t.setDaemon(true);
+                    return t;
+                }
+            },
+            new RejectedExecutionHandler() {
+                @Override
+                public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                    // Queue full or exiting already
+                    r.run();
+                }
+            }
+    );
+
+    /**
+     * Files written by digest of their content.
+     */
+    private final Map<String, File> written = new ConcurrentHashMap<>();
+
+    @Inject
+    public DiagnosticsWriter(WorldCleaner cleaner) {
+        this(
+                "true".equals(System.getenv("DIAGNOSTICS_ASYNC")),
+                Long.parseLong(System.getenv("DIAGNOSTICS_LOG_TAIL_MB") == null ? "10" : System.getenv("DIAGNOSTICS_LOG_TAIL_MB")) * 1024 * 1024
+        );
+        if (enabled) {
+            cleaner.addTask(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            });
+        }
+    }
+
+    public DiagnosticsWriter(boolean enabled, long logTail) {
+        this.enabled = enabled;
+        this.logTail = logTail;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Write the content to the file.
+     *
+     * @return The file the content will be written to, <tt>.gz</tt> is appended to the name when compressed.
+     */
+    public File write(@Nonnull File target, @Nonnull String content) {
+        if (!enabled) {
+            try {
+                writeFile(target, content.getBytes(StandardCharsets.UTF_8), false);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to write " + target, e);
+            }
+            return target;
+        }
+
+        final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        final boolean compress = bytes.length > COMPRESS_THRESHOLD;
+        final File file = compress ? gz(target) : target;
+        submit(file, new Task() {
+            @Override
+            public void run() throws IOException {
+                String digest = digest(bytes) + (compress ? ".gz" : "");
+                File same = written.get(digest);
+                if (same != null && same.exists() && link(same, file)) return;
+
+                writeFile(file, bytes, compress);
+                written.put(digest, file);
+            }
+        });
+        return file;
+    }
+
+    /**
+     * Write the file produced by the caller, such as a recording that takes a while to encode. Never compressed.
+     *
+     * @return The file the content will be written to.
+     */
+    public File write(@Nonnull final File target, @Nonnull final Content content) {
+        Task task = new Task() {
+            @Override
+            public void run() throws IOException {
+                Files.createDirectories(target.getParentFile().toPath());
+                content.writeTo(target);
+            }
+        };
+        if (!enabled) {
+            try {
+                task.run();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to write " + target, e);
+            }
+            return target;
+        }
+
+        submit(target, task);
+        return target;
+    }
+
+    /**
+     * Copy the file as it is now, or its tail when it is too big.
+     *
+     * @return The file the content will be copied to, <tt>.gz</tt> is appended to the name when compressed.
+     */
+    public File copy(@Nonnull File target, @Nonnull final File source) throws IOException {
+        if (!enabled) {
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return target;
+        }
+
+        // The source keeps growing, copy what is there at the time of failure
+        final long length = source.length();
+        final boolean compress = length > COMPRESS_THRESHOLD;
+        final File file = compress ? gz(target) : target;
+        submit(file, new Task() {
+            @Override
+            public void run() throws IOException {
+                long skip = Math.max(0, length - logTail);
+                Files.createDirectories(file.getParentFile().toPath());
+                try (RandomAccessFile in = new RandomAccessFile(source, "r"); OutputStream out = open(file, compress)) {
+                    if (skip > 0) {
+                        out.write(String.format("[... %d bytes skipped ...]%n", skip).getBytes(StandardCharsets.UTF_8));
+                        in.seek(skip);
+                    }
+                    byte[] buf = new byte[8192];
+                    long remaining = length - skip;
+                    int len;
+                    while (remaining > 0 && (len = in.read(buf, 0, (int) Math.min(buf.length, remaining))) != -1) {
+                        out.write(buf, 0, len);
+                        remaining -= len;
+                    }
+                }
+            }
+        });
+        return file;
+    }
+
+    /**
+     * Wait for all pending files to be written.
+     */
+    public void flush() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.warning("Diagnostics still being written after a minute, giving up");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Content written to a file by its producer.
+     */
+    public interface Content {
+        void writeTo(@Nonnull File file) throws IOException;
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private void submit(final File file, final Task task) {
+        Runnable r = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (IOException|RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to write " + file, e);
+                }
+            }
+        };
+        executor.execute(r);
+    }
+
+    private static void writeFile(File file, byte[] bytes, boolean compress) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        try (OutputStream out = open(file, compress)) {
+            out.write(bytes);
+        }
+    }
+
+    private static OutputStream open(File file, boolean compress) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        return compress ? new GZIPOutputStream(out) : out;
+    }
+
+    private static boolean link(File existing, File file) {
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.deleteIfExists(file.toPath());
+            Files.createLink(file.toPath(), existing.toPath());
+            return true;
+        } catch (IOException|UnsupportedOperationException e) {
+            return false; // Write a copy then
+        }
+    }
+
+    private static File gz(File file) {
+        return new File(file.getParentFile(), file.getName() + ".gz");
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(bytes)) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
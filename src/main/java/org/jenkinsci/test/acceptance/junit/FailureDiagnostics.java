@@ -1,9 +1,12 @@
 package org.jenkinsci.test.acceptance.junit;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.codehaus.plexus.util.FileUtils;
 import org.jenkinsci.test.acceptance.guice.TestName;
@@ -17,6 +20,7 @@ import com.google.inject.Inject;
  *
  * The harness can attach any number of diagnostic files to be stored in /target/diagnostics/$TEST_NAME/.
  * The same 'kind' of diagnostic information is expected to use the same file/subdir name.
+ * Files written or copied through this class are handled by {@link DiagnosticsWriter}.
  *
  * @author ogondza
  */
@@ -28,9 +32,21 @@ public class FailureDiagnostics extends TestWatcher {
 
     private final File dir;
 
-    @Inject
+    private final DiagnosticsWriter writer;
+
+    /**
+     * Files handed to the {@link DiagnosticsWriter} that might not be written yet.
+     */
+    private final Set<File> pending = Collections.synchronizedSet(new LinkedHashSet<File>());
+
     public FailureDiagnostics(TestName test) {
+        this(test, new DiagnosticsWriter(false, 0));
+    }
+
+    @Inject
+    public FailureDiagnostics(TestName test, DiagnosticsWriter writer) {
         this.dir = new File("target/diagnostics/" + test.get());
+        this.writer = writer;
     }
 
     /**
@@ -63,17 +79,27 @@ public class FailureDiagnostics extends TestWatcher {
      * @param content Content to write.
      */
     public void write(String filename, String content) {
-        FileWriter writer = null;
-        try {
-            try {
-                writer = new FileWriter(touch(filename));
-                writer.write(content);
-            } finally {
-                if (writer != null) writer.close();
-            }
-        } catch (IOException e) {
-            new Error(e);
-        }
+        pending.add(writer.write(touch(filename), content));
+    }
+
+    /**
+     * Write diagnostic file produced by the caller.
+     *
+     * @param filename Name of the file
+     * @param content Producer of the content.
+     */
+    public void write(String filename, DiagnosticsWriter.Content content) {
+        pending.add(writer.write(touch(filename), content));
+    }
+
+    /**
+     * Copy file to diagnostics, only its tail when it is too big.
+     *
+     * @param filename Name of the copy.
+     * @param source File to copy.
+     */
+    public void copy(String filename, File source) throws IOException {
+        pending.add(writer.copy(touch(filename), source));
     }
 
     public File mkdirs(String path) {
@@ -93,7 +119,7 @@ public class FailureDiagnostics extends TestWatcher {
             String[] files = dir.list();
             // Some diagnostic tools can produce data even though test succeeded
             // TODO introduce single switch for all diagnostic tools (yes/no/failure only)?
-            if (files != null && files.length == 0) {
+            if (files != null && files.length == 0 && pending.isEmpty()) {
                 try {
                     FileUtils.deleteDirectory(dir);
                 } catch (IOException e) {
@@ -105,14 +131,20 @@ public class FailureDiagnostics extends TestWatcher {
 
     @Override
     public void failed(Throwable e, Description description) {
+        // Including the files still being written
+        Set<File> attachments = new LinkedHashSet<>();
         if (dir.exists()) {
             File[] files = dir.listFiles();
             if (files != null) {
-                for (File file : files) {
-                    //https://wiki.jenkins-ci.org/display/JENKINS/JUnit+Attachments+Plugin#JUnitAttachmentsPlugin-ByprintingoutthefilenameinaformatthatJenkinswillunderstand
-                    System.out.println(String.format(JUNIT_ATTACHMENT, file.getAbsolutePath()));
-                }
+                attachments.addAll(Arrays.asList(files));
             }
         }
+        synchronized (pending) {
+            attachments.addAll(pending);
+        }
+        for (File file : attachments) {
+            //https://wiki.jenkins-ci.org/display/JENKINS/JUnit+Attachments+Plugin#JUnitAttachmentsPlugin-ByprintingoutthefilenameinaformatthatJenkinswillunderstand
+            System.out.println(String.format(JUNIT_ATTACHMENT, file.getAbsolutePath()));
+        }
     }
 }
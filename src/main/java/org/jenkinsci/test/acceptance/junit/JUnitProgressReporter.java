@@ -5,7 +5,9 @@ import java.util.Date;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
+import org.jenkinsci.test.acceptance.utils.ElasticTimeCalibrator;
 import org.junit.runner.Description;
+import org.junit.runner.Result;
 import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunListener;
 
@@ -46,4 +48,14 @@ public class JUnitProgressReporter extends RunListener {
 
         results.add(failure.getDescription().toString());
     }
+
+    @Override
+    public void testRunFinished(Result result) throws Exception {
+        WaitStatistics.get().report(System.out, 10);
+        Timings.get().report(System.out);
+        Timings.get().writeSummary();
+        if (ElasticTimeCalibrator.isEnabled()) {
+            ElasticTimeCalibrator.get().report(System.out);
+        }
+    }
 }
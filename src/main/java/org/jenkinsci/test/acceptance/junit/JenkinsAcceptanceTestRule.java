@@ -4,8 +4,11 @@ import com.google.inject.Inject;
 import com.google.inject.Injector;
 
 import org.jenkinsci.test.acceptance.controller.JenkinsController;
+import org.jenkinsci.test.acceptance.controller.JenkinsStateReset;
+import org.jenkinsci.test.acceptance.controller.LocalController;
 import org.jenkinsci.test.acceptance.guice.World;
 import org.jenkinsci.test.acceptance.po.CapybaraPortingLayerImpl;
+import org.jenkinsci.test.acceptance.update_center.PluginSpec;
 import org.junit.internal.AssumptionViolatedException;
 import org.junit.rules.MethodRule;
 import org.junit.rules.TestRule;
@@ -19,12 +22,16 @@ import org.openqa.selenium.WebDriver;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Runs Guice container that houses {@link JenkinsController}, {@link WebDriver}, and so on.
@@ -38,6 +45,8 @@ import java.util.TreeMap;
  * @author Kohsuke Kawaguchi
  */
 public class JenkinsAcceptanceTestRule implements MethodRule { // TODO should use TestRule instead
+    private static final Logger LOGGER = Logger.getLogger(JenkinsAcceptanceTestRule.class.getName());
+
     @Override
     public Statement apply(final Statement base, final FrameworkMethod method, final Object target) {
         final Description description = Description.createTestDescription(target.getClass(), method.getName(), method.getAnnotations());
@@ -47,15 +56,40 @@ public class JenkinsAcceptanceTestRule implements MethodRule { // TODO should us
             @Inject FailureDiagnostics diagnostics;
             @Inject WebDriver driver;
 
+            private final boolean tenant = SharedJenkins.isEnabled(description);
+
+            private final boolean reuse = !tenant && ReusedJenkins.isEnabled(target.getClass());
+
+            /**
+             * Reverts the state of Jenkins used by this test, so the next one can use it. Null if not reusable.
+             */
+            private JenkinsStateReset reset;
+
             @Override
             public void evaluate() throws Throwable {
                 World world = World.get();
                 Injector injector = world.getInjector();
 
                 world.startTestScope(description.getDisplayName());
+                Timings.get().startTest(description.getDisplayName());
 
-                injector.injectMembers(this);
+                if (tenant) {
+                    SharedJenkins.beginSetup(injector, description);
+                }
+                if (reuse) {
+                    reset = ReusedJenkins.restore(injector, target.getClass(), WithPlugins.RuleImpl.requiredBy(description));
+                }
 
+                try {
+                    injector.injectMembers(this);
+                } catch (RuntimeException e) {
+                    if (tenant) {
+                        SharedJenkins.release();
+                    }
+                    throw e;
+                }
+
+                boolean failed = false;
                 try {
                     decorateWithRules(base).evaluate();
                 } catch (AssumptionViolatedException e) {
@@ -63,6 +97,7 @@ public class JenkinsAcceptanceTestRule implements MethodRule { // TODO should us
                     e.printStackTrace();
                     throw e;
                 } catch (Exception|AssertionError e) { // Errors and failures
+                    failed = true;
                     if (causedBy(e, NoSuchElementException.class) != null) {
                         diagnostics.write(
                                 "last-page.html",
@@ -72,7 +107,19 @@ public class JenkinsAcceptanceTestRule implements MethodRule { // TODO should us
                     controller.diagnose(e);
                     throw e;
                 } finally {
-                    world.endTestScope();
+                    if (tenant) {
+                        SharedJenkins.release();
+                        SharedJenkins.detach(injector);
+                    }
+                    try (Timings.Timer t = Timings.get().start("cleanup")) {
+                        // Failed test can leave Jenkins in any state
+                        if (reuse && reset != null && !failed && controller.isRunning()) {
+                            ReusedJenkins.keep(injector, target.getClass(), WithPlugins.RuleImpl.requiredBy(description), reset);
+                        }
+                        world.endTestScope();
+                    } finally {
+                        Timings.get().endTest();
+                    }
                 }
             }
 
@@ -99,6 +146,13 @@ public class JenkinsAcceptanceTestRule implements MethodRule { // TODO should us
                     }
                 });
 
+                if (reuse) {
+                    body = takeBaseline(body);
+                }
+                if (tenant) {
+                    body = endSetup(body);
+                }
+
                 collectRuleAnnotations(method, target, rules);
                 collectGlobalRules(rules);
 
@@ -116,6 +170,37 @@ public class JenkinsAcceptanceTestRule implements MethodRule { // TODO should us
                 return body;
             }
 
+            /**
+             * Record the state of Jenkins to return to once all the rules have set it up, so it includes the plugins
+             * and configuration the tests of the class have in common.
+             */
+            private Statement takeBaseline(final Statement body) {
+                return new Statement() {
+                    @Override public void evaluate() throws Throwable {
+                        if (reset == null && controller.isRunning()) {
+                            try {
+                                reset = JenkinsStateReset.of(controller.getUrl());
+                            } catch (IOException e) {
+                                LOGGER.log(Level.WARNING, "Jenkins will not be reused, unable to read its state", e);
+                            }
+                        }
+                        body.evaluate();
+                    }
+                };
+            }
+
+            /**
+             * Let other tenants run once all the rules have set up this one.
+             */
+            private Statement endSetup(final Statement body) {
+                return new Statement() {
+                    @Override public void evaluate() throws Throwable {
+                        SharedJenkins.endSetup(injector, controller, description);
+                        body.evaluate();
+                    }
+                };
+            }
+
             private void collectGlobalRules(TreeMap<Integer, Set<TestRule>> rules) {
                 Iterable<Class> impls;
                 try {
@@ -164,7 +249,23 @@ public class JenkinsAcceptanceTestRule implements MethodRule { // TODO should us
                     public Statement apply(final Statement base, Description description) {
                         return new Statement() {
                             @Override public void evaluate() throws Throwable {
+                                List<PluginSpec> plugins = WithPlugins.RuleImpl.requiredBy(description);
+                                if (controller instanceof LocalController) {
+                                    List<String> specs = new ArrayList<>();
+                                    for (PluginSpec plugin : plugins) {
+                                        specs.add(plugin.toString());
+                                    }
+                                    ((LocalController) controller).setSnapshotPlugins(specs);
+                                }
+
+                                boolean fresh = !controller.isRunning(); // Not reused from the previous test
                                 controller.start();
+
+                                // Plugins will be installed first otherwise
+                                if (fresh && plugins.isEmpty() && controller instanceof LocalController) {
+                                    ((LocalController) controller).captureHomeSnapshot();
+                                }
+
                                 // Now it is safe to inject Jenkins
                                 injector.injectMembers(target);
                                 for (Set<TestRule> rg: rules.values()) {
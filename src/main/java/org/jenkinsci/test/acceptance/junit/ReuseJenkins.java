@@ -0,0 +1,27 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Run all the tests of the class against one Jenkins instance instead of starting a new one for every test.
+ *
+ * <p>
+ * Between the tests, jobs, views, nodes, queue and system credentials are removed by a single Groovy script. The instance
+ * is discarded and a new one is started for the next test when the test failed, when the tests require different plugins,
+ * or when the test changed the state the reset does not revert, such as plugins or security. So the tests need to leave
+ * the global configuration alone to benefit from this.
+ *
+ * @see org.jenkinsci.test.acceptance.controller.JenkinsStateReset
+ */
+@Retention(RUNTIME)
+@Target(TYPE)
+@Inherited
+@Documented
+public @interface ReuseJenkins {
+}
@@ -0,0 +1,113 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jenkinsci.test.acceptance.controller.JenkinsController;
+import org.jenkinsci.test.acceptance.controller.JenkinsStateReset;
+import org.jenkinsci.test.acceptance.guice.TestLifecycle;
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+import org.jenkinsci.test.acceptance.update_center.PluginSpec;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+
+/**
+ * Jenkins kept running after a test for the next one from the same {@link ReuseJenkins} class.
+ */
+/*package*/ final class ReusedJenkins {
+    private static final Logger LOGGER = Logger.getLogger(ReusedJenkins.class.getName());
+
+    private static final Key<JenkinsController> KEY = Key.get(JenkinsController.class);
+
+    /**
+     * Instance kept by the last test of every thread.
+     */
+    private static final Map<Thread, ReusedJenkins> KEPT = new ConcurrentHashMap<>();
+
+    private static final AtomicBoolean CLEANER_REGISTERED = new AtomicBoolean();
+
+    private final Class<?> testClass;
+    private final List<String> plugins;
+    private final JenkinsController controller;
+    private final JenkinsStateReset reset;
+
+    private ReusedJenkins(Class<?> testClass, List<String> plugins, JenkinsController controller, JenkinsStateReset reset) {
+        this.testClass = testClass;
+        this.plugins = plugins;
+        this.controller = controller;
+        this.reset = reset;
+    }
+
+    /*package*/ static boolean isEnabled(Class<?> testClass) {
+        return testClass.isAnnotationPresent(ReuseJenkins.class);
+    }
+
+    /**
+     * Put the instance kept by the previous test into the scope of the test that is starting, provided it can be reset.
+     * The instance is discarded otherwise.
+     *
+     * @return The reset of the instance put into the scope, null when there is none.
+     */
+    /*package*/ static JenkinsStateReset restore(Injector injector, Class<?> testClass, List<PluginSpec> plugins) {
+        ReusedJenkins kept = KEPT.remove(Thread.currentThread());
+        if (kept == null) return null;
+
+        if (kept.testClass == testClass && kept.plugins.equals(specs(plugins))) {
+            try (Timings.Timer t = Timings.get().start("controller.reset")) {
+                if (kept.reset.reset()) {
+                    injector.getInstance(TestLifecycle.class).put(KEY, kept.controller);
+                    return kept.reset;
+                }
+            }
+        }
+
+        kept.discard();
+        return null;
+    }
+
+    /**
+     * Take the instance used by the test that has finished out of its scope, so it is not stopped with the rest of it.
+     */
+    /*package*/ static void keep(
+            Injector injector, Class<?> testClass, List<PluginSpec> plugins, JenkinsStateReset reset
+    ) {
+        JenkinsController controller = injector.getInstance(TestLifecycle.class).remove(KEY);
+        if (controller == null) return;
+
+        if (CLEANER_REGISTERED.compareAndSet(false, true)) {
+            injector.getInstance(WorldCleaner.class).addTask(new Runnable() {
+                @Override
+                public void run() {
+                    for (ReusedJenkins kept : KEPT.values()) {
+                        kept.discard();
+                    }
+                    KEPT.clear();
+                }
+            });
+        }
+        KEPT.put(Thread.currentThread(), new ReusedJenkins(testClass, specs(plugins), controller, reset));
+    }
+
+    private void discard() {
+        try {
+            controller.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to stop Jenkins kept for " + testClass.getName(), e);
+        }
+    }
+
+    private static List<String> specs(List<PluginSpec> plugins) {
+        List<String> specs = new ArrayList<>();
+        for (PluginSpec plugin : plugins) {
+            specs.add(plugin.toString());
+        }
+        return specs;
+    }
+}
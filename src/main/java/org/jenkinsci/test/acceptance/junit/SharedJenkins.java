@@ -0,0 +1,129 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.jenkinsci.test.acceptance.controller.JenkinsController;
+import org.jenkinsci.test.acceptance.guice.TestLifecycle;
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+import org.jenkinsci.test.acceptance.update_center.PluginSpec;
+import org.junit.runner.Description;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+
+/**
+ * Jenkins shared by all the {@link WithTenantFolder} tests running in the JVM.
+ *
+ * <p>
+ * The first test boots the instance as usual and it is shared once the test is set up. Tests hold a shared lock while
+ * they run. A test requiring plugins the instance was not set up with yet takes the lock exclusively for its setup, so
+ * plugins are never installed, nor Jenkins restarted, while other tests are running and only one instance is booted.
+ * Tests whose plugins are all set up already run their setup concurrently with other tests.
+ */
+/*package*/ final class SharedJenkins {
+    private static final Key<JenkinsController> KEY = Key.get(JenkinsController.class);
+
+    /**
+     * Held exclusively by the test changing plugins of the instance, shared by the tests running against it. Fair, so
+     * the test waiting to install plugins is not starved by the tests that keep coming.
+     */
+    private static final ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock(true);
+
+    private static JenkinsController shared;
+
+    /**
+     * Plugin requirements of the tests that have set up the shared instance.
+     */
+    private static final Set<String> provided = new HashSet<>();
+
+    /*package*/ static boolean isEnabled(Description d) {
+        return d.getAnnotation(WithTenantFolder.class) != null || d.getTestClass().isAnnotationPresent(WithTenantFolder.class);
+    }
+
+    /**
+     * Wait until the test can be set up and put the shared instance into the scope of the test that is starting.
+     */
+    /*package*/ static void beginSetup(Injector injector, Description d) throws InterruptedException {
+        boolean exclusive;
+        synchronized (SharedJenkins.class) {
+            exclusive = shared == null || !provided.containsAll(requiredBy(d));
+        }
+
+        if (exclusive) {
+            LOCK.writeLock().lockInterruptibly();
+        } else {
+            LOCK.readLock().lockInterruptibly();
+        }
+
+        synchronized (SharedJenkins.class) {
+            if (shared != null) {
+                injector.getInstance(TestLifecycle.class).put(KEY, shared);
+            }
+        }
+    }
+
+    /**
+     * Let the test run alongside the others, sharing the instance the test has booted unless there is one already.
+     */
+    /*package*/ static void endSetup(Injector injector, JenkinsController controller, Description d) {
+        if (!LOCK.isWriteLockedByCurrentThread()) return;
+
+        try {
+            synchronized (SharedJenkins.class) {
+                if (shared == null && controller != null && controller.isRunning()) {
+                    shared = controller;
+                    injector.getInstance(WorldCleaner.class).addTask(controller);
+                }
+                if (shared == controller) {
+                    provided.addAll(requiredBy(d));
+                }
+            }
+        } finally {
+            // Downgrade, no other setup can get in between
+            LOCK.readLock().lock();
+            LOCK.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Release the lock held by the finished test, whether it has got past the setup or not.
+     */
+    /*package*/ static void release() {
+        if (LOCK.isWriteLockedByCurrentThread()) {
+            LOCK.writeLock().unlock();
+        }
+        while (LOCK.getReadHoldCount() > 0) {
+            LOCK.readLock().unlock();
+        }
+    }
+
+    /**
+     * Plugins installed by the setup of the test.
+     */
+    /*package*/ static List<String> requiredBy(Description d) {
+        List<String> specs = new ArrayList<>();
+        for (PluginSpec plugin : WithPlugins.RuleImpl.requiredBy(d)) {
+            specs.add(plugin.toString());
+        }
+        specs.add(WithTenantFolder.RuleImpl.FOLDER_PLUGIN);
+        return specs;
+    }
+
+    /**
+     * Take the shared instance out of the scope of the finished test, so it is not stopped with the rest of it.
+     */
+    /*package*/ static void detach(Injector injector) {
+        TestLifecycle lifecycle = injector.getInstance(TestLifecycle.class);
+        synchronized (SharedJenkins.class) {
+            JenkinsController controller = lifecycle.remove(KEY);
+            if (controller != null && controller != shared) {
+                // Not shared, clean up with the test
+                lifecycle.put(KEY, controller);
+            }
+        }
+    }
+}
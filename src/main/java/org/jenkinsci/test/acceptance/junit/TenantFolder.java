@@ -0,0 +1,36 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import org.jenkinsci.test.acceptance.guice.TestScope;
+import org.jenkinsci.test.acceptance.po.Folder;
+import org.jenkinsci.test.acceptance.po.JobsMixIn;
+import org.jenkinsci.test.acceptance.po.ViewsMixIn;
+
+/**
+ * Folder the {@link WithTenantFolder} test keeps its jobs and views in.
+ *
+ * <p>
+ * Inject it and use {@link #getJobs()} and {@link #getViews()} in place of the ones from
+ * {@link org.jenkinsci.test.acceptance.po.Jenkins}.
+ */
+@TestScope
+public class TenantFolder {
+    private volatile Folder folder;
+
+    /*package*/ void setFolder(Folder folder) {
+        this.folder = folder;
+    }
+
+    public Folder getFolder() {
+        Folder f = folder;
+        if (f == null) throw new IllegalStateException("Test is not annotated with @WithTenantFolder");
+        return f;
+    }
+
+    public JobsMixIn getJobs() {
+        return getFolder().getJobs();
+    }
+
+    public ViewsMixIn getViews() {
+        return getFolder().getViews();
+    }
+}
@@ -0,0 +1,268 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Durations of harness phases, such as Jenkins startup, plugin installation or page navigation.
+ *
+ * Every test gets a machine-readable breakdown written to <tt>target/timings/$TEST_NAME.json</tt> and
+ * a summary with percentiles is written to <tt>target/timings/summary-$PID.json</tt> once the JVM finishes, so forks
+ * running tests in parallel do not overwrite each other's summary.
+ * Phases can nest, so the time of the inner phase is included in the outer one.
+ *
+ * <pre>
+ * try (Timings.Timer t = Timings.get().start("phase")) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class Timings {
+    private static final Logger LOGGER = Logger.getLogger(Timings.class.getName());
+
+    private static final Timings INSTANCE = new Timings(new File("target/timings"));
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final File dir;
+
+    /**
+     * Durations of all the phases in this JVM.
+     */
+    private final Map<String, Samples> suite = new TreeMap<>();
+
+    /**
+     * Test running in current thread, if any.
+     */
+    private final InheritableThreadLocal<TestTimings> current = new InheritableThreadLocal<>();
+
+    public static Timings get() {
+        return INSTANCE;
+    }
+
+    /*package*/ Timings(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Start measuring the phase. The measurement ends when returned timer is closed.
+     */
+    public Timer start(String phase) {
+        return new Timer(phase, current.get());
+    }
+
+    public final class Timer implements AutoCloseable {
+        private final String phase;
+        private final TestTimings test;
+        private final long start = System.nanoTime();
+
+        private Timer(String phase, TestTimings test) {
+            this.phase = phase;
+            this.test = test;
+        }
+
+        @Override
+        public void close() {
+            record(test, phase, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record the phase that was measured elsewhere, such as when its name is known only once it has finished.
+     */
+    public void record(String phase, long nanos) {
+        record(current.get(), phase, nanos);
+    }
+
+    /*package*/ void record(TestTimings test, String phase, long nanos) {
+        synchronized (suite) {
+            Samples s = suite.get(phase);
+            if (s == null) {
+                suite.put(phase, s = new Samples());
+            }
+            s.add(nanos);
+        }
+        if (test != null) {
+            test.record(phase, nanos);
+        }
+    }
+
+    /**
+     * Start attributing phases measured in this thread to the test.
+     */
+    /*package*/ void startTest(String name) {
+        current.set(new TestTimings(name));
+    }
+
+    /**
+     * Write the timings of the test started by this thread.
+     */
+    /*package*/ void endTest() {
+        TestTimings test = current.get();
+        if (test == null) return;
+        current.remove();
+
+        write(new File(dir, fileName(test.name) + ".json"), test.toJson());
+    }
+
+    /**
+     * Write the summary of all phases measured in this JVM.
+     */
+    public void writeSummary() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (Map.Entry<String, Samples> e : getSuite().entrySet()) {
+            Samples s = e.getValue();
+            Map<String, Object> phase = new LinkedHashMap<>();
+            phase.put("count", s.size);
+            phase.put("millis", millis(s.total));
+            phase.put("p50", millis(s.percentile(50)));
+            phase.put("p90", millis(s.percentile(90)));
+            phase.put("p99", millis(s.percentile(99)));
+            phase.put("max", millis(s.percentile(100)));
+            json.put(e.getKey(), phase);
+        }
+        write(getSummaryFile(), json);
+    }
+
+    /*package*/ File getSummaryFile() {
+        // <pid>@<host> on all the JVMs we run on
+        String pid = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+        return new File(dir, "summary-" + pid + ".json");
+    }
+
+    /**
+     * Test display names can contain characters not allowed in file names, such as parameters of the test.
+     */
+    /*package*/ static String fileName(String test) {
+        String name = test.replaceAll("[^A-Za-z0-9._\\-]", "_");
+        return name.length() > 200 ? name.substring(0, 200) : name;
+    }
+
+    /**
+     * Print the summary of all phases measured in this JVM.
+     */
+    public void report(PrintStream out) {
+        Map<String, Samples> phases = getSuite();
+        if (phases.isEmpty()) return;
+
+        out.println("Harness timings:");
+        out.println(String.format("  %-30s %8s %10s %8s %8s %8s %8s", "phase", "count", "total ms", "p50", "p90", "p99", "max"));
+        for (Map.Entry<String, Samples> e : phases.entrySet()) {
+            Samples s = e.getValue();
+            out.println(String.format("  %-30s %8d %10d %8d %8d %8d %8d",
+                    e.getKey(), s.size, millis(s.total),
+                    millis(s.percentile(50)), millis(s.percentile(90)), millis(s.percentile(99)), millis(s.percentile(100))
+            ));
+        }
+    }
+
+    private Map<String, Samples> getSuite() {
+        Map<String, Samples> copy = new TreeMap<>();
+        synchronized (suite) {
+            for (Map.Entry<String, Samples> e : suite.entrySet()) {
+                copy.put(e.getKey(), e.getValue().copy());
+            }
+        }
+        return copy;
+    }
+
+    private void write(File file, Object json) {
+        try {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Unable to create " + dir);
+            }
+            MAPPER.writeValue(file, json);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to write timings to " + file, ex);
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Phases of a single test.
+     */
+    /*package*/ static final class TestTimings {
+        private final String name;
+        private final long start = System.nanoTime();
+        private final Map<String, Samples> phases = new TreeMap<>();
+
+        private TestTimings(String name) {
+            this.name = name;
+        }
+
+        private synchronized void record(String phase, long nanos) {
+            Samples s = phases.get(phase);
+            if (s == null) {
+                phases.put(phase, s = new Samples());
+            }
+            s.add(nanos);
+        }
+
+        private synchronized Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("test", name);
+            json.put("millis", millis(System.nanoTime() - start));
+            Map<String, Object> ps = new LinkedHashMap<>();
+            for (Map.Entry<String, Samples> e : phases.entrySet()) {
+                Samples s = e.getValue();
+                Map<String, Object> phase = new LinkedHashMap<>();
+                phase.put("count", s.size);
+                phase.put("millis", millis(s.total));
+                phase.put("max", millis(s.percentile(100)));
+                ps.put(e.getKey(), phase);
+            }
+            json.put("phases", ps);
+            return json;
+        }
+    }
+
+    /**
+     * Growable array of durations in nanoseconds.
+     */
+    private static final class Samples {
+        private long[] values = new long[16];
+        private int size;
+        private long total;
+
+        private void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+            total += nanos;
+        }
+
+        private Samples copy() {
+            Samples s = new Samples();
+            s.values = Arrays.copyOf(values, size);
+            s.size = size;
+            s.total = total;
+            return s;
+        }
+
+        /**
+         * Nearest-rank percentile. Sorts the samples, use on a copy.
+         */
+        private long percentile(int p) {
+            if (size == 0) return 0;
+            Arrays.sort(values, 0, size);
+            int rank = (int) Math.ceil(p / 100.0 * size);
+            return values[Math.max(rank, 1) - 1];
+        }
+    }
+}
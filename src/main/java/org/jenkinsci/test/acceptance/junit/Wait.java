@@ -23,12 +23,21 @@
  */
 package org.jenkinsci.test.acceptance.junit;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import org.hamcrest.Matcher;
 import org.hamcrest.StringDescription;
+import org.jenkinsci.test.acceptance.log.LogListenable;
+import org.jenkinsci.test.acceptance.log.LogListener;
 import org.jenkinsci.test.acceptance.utils.ElasticTime;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.support.ui.Clock;
+import org.openqa.selenium.support.ui.Duration;
 import org.openqa.selenium.support.ui.FluentWait;
 import org.openqa.selenium.support.ui.Sleeper;
 import org.openqa.selenium.support.ui.SystemClock;
@@ -38,6 +47,12 @@ import com.google.common.base.Function;
 /**
  * ATH specific wait object.
  *
+ * <p>
+ * Apart from the fixed polling interval of {@link FluentWait}, the wait can {@link #withBackoff back off} starting
+ * with short intervals that grow for conditions that take long to be met. The sleep between polls can be cut short
+ * by {@link #wakeup()}, so the condition is reevaluated as soon as something interesting happens. Every wait is
+ * recorded in {@link WaitStatistics}.
+ *
  * @author ogondza
  *
  * @param <Subject> Argument type passed to callback.
@@ -55,18 +70,73 @@ public class Wait<Subject> extends FluentWait<Subject> {
         }
     }
 
+    /**
+     * Sleeps between polls either for fixed interval or with exponential backoff, until woken up.
+     */
+    private static final class WakeableSleeper implements Sleeper {
+        private long initial = -1;
+        private long max;
+        private long next;
+        private boolean woken;
+
+        @Override
+        public synchronized void sleep(Duration duration) throws InterruptedException {
+            long millis = duration.in(TimeUnit.MILLISECONDS);
+            if (initial >= 0) {
+                millis = next;
+                next = Math.min(next * 2, max);
+            }
+
+            long end = System.currentTimeMillis() + millis;
+            while (!woken) {
+                long remaining = end - System.currentTimeMillis();
+                if (remaining <= 0) break;
+                wait(remaining);
+            }
+
+            if (woken) {
+                woken = false;
+                next = initial;
+            }
+        }
+
+        synchronized void backoff(long initial, long max) {
+            this.initial = this.next = initial;
+            this.max = max;
+        }
+
+        synchronized void fixed() {
+            this.initial = -1;
+        }
+
+        synchronized void wakeup() {
+            woken = true;
+            notifyAll();
+        }
+    }
+
     /** Predicate and input reference stored when {@link Predicate} is used so we can diagnose. */
     private Predicate<?> predicate;
     private Subject input;
 
+    private final WakeableSleeper sleeper;
+
+    /**
+     * Name of the wait in {@link WaitStatistics}, the message pattern so waits differing in arguments are grouped.
+     */
+    private String statisticsKey;
+
+    /** Log listeners to detach once the wait is over. */
+    private final List<LogListener> listeners = new ArrayList<>();
+    private final List<LogListenable> listenables = new ArrayList<>();
+
     /**
      * Create wait with configurable timer.
      *
      * This is useful for timeout waiting for tasks to complete that might be dependent on test environment.
      */
     public Wait(Subject input, ElasticTime time) {
-        super(input, new ElasticClock(time), Sleeper.SYSTEM_SLEEPER);
-        this.input = input;
+        this(input, new ElasticClock(time), new WakeableSleeper());
     }
 
     /**
@@ -76,18 +146,64 @@ public class Wait<Subject> extends FluentWait<Subject> {
      * @see {@link Wait<Subject>(Subject, ElasticTime)}
      */
     public Wait(Subject input) {
-        super(input);
+        this(input, new SystemClock(), new WakeableSleeper());
+    }
+
+    private Wait(Subject input, Clock clock, WakeableSleeper sleeper) {
+        super(input, clock, sleeper);
         this.input = input;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Poll first after <tt>initial</tt> time and keep doubling the interval up to <tt>max</tt>.
+     *
+     * Conditions that are met quickly are detected quickly and the ones that take long are not polled needlessly often.
+     */
+    public Wait<Subject> withBackoff(long initial, long max, TimeUnit unit) {
+        sleeper.backoff(unit.toMillis(initial), unit.toMillis(max));
+        return this;
+    }
+
+    /**
+     * Reevaluate the condition immediately in case the wait is sleeping.
+     *
+     * Intended to be called from other threads when something the condition depends on happens.
+     */
+    public void wakeup() {
+        sleeper.wakeup();
+    }
+
+    /**
+     * Reevaluate the condition whenever the log line matching the pattern appears.
+     */
+    public Wait<Subject> wakeupOn(LogListenable source, final Pattern pattern) {
+        LogListener listener = new LogListener() {
+            @Override public void processLine(String line) throws IOException {
+                if (pattern.matcher(line).find()) {
+                    wakeup();
+                }
+            }
+
+            @Override public void processClose(Exception t) {
+                wakeup();
+            }
+        };
+        source.addLogListener(listener);
+        listenables.add(source);
+        listeners.add(listener);
+        return this;
     }
 
     public Wait<Subject> withMessage(String pattern, Object... args) {
         withMessage(String.format(pattern, args));
+        statisticsKey = pattern;
         return this;
     }
 
     // For convenience as we have quite a lot of Callables historically
     public <Return> Return until(final Callable<Return> isTrue) {
-        return super.until(new Function<Subject, Return>() {
+        return until(new Function<Subject, Return>() {
             @Override
             public Return apply(Subject input) {
                 try {
@@ -141,12 +257,48 @@ public class Wait<Subject> extends FluentWait<Subject> {
 
         predicate = isTrue;
         try {
-            return super.until(fun);
+            return until(fun);
         } finally {
             predicate = null;
         }
     }
 
+    @Override
+    public <Return> Return until(final Function<? super Subject, Return> isTrue) {
+        final int[] polls = new int[1];
+        Function<Subject, Return> counting = new Function<Subject, Return>() {
+            @Override public Return apply(Subject input) {
+                polls[0]++;
+                return isTrue.apply(input);
+            }
+
+            @Override public String toString() {
+                return isTrue.toString();
+            }
+        };
+
+        long start = System.currentTimeMillis();
+        WaitStatistics.Outcome outcome = WaitStatistics.Outcome.FAILURE;
+        try (Timings.Timer t = Timings.get().start("waitFor")) {
+            Return ret = super.until(counting);
+            outcome = WaitStatistics.Outcome.SUCCESS;
+            return ret;
+        } catch (TimeoutException ex) {
+            outcome = WaitStatistics.Outcome.TIMEOUT;
+            throw ex;
+        } finally {
+            WaitStatistics.get().record(
+                    statisticsKey != null ? statisticsKey : isTrue.toString().replaceFirst("@[0-9a-f]+$", ""),
+                    polls[0], System.currentTimeMillis() - start, outcome
+            );
+            for (int i = 0; i < listeners.size(); i++) {
+                listenables.get(i).removeLogListener(listeners.get(i));
+            }
+            listeners.clear();
+            listenables.clear();
+        }
+    }
+
     @Override
     protected RuntimeException timeoutException(String message, Throwable lastException) {
         if (predicate != null) {
@@ -180,11 +332,13 @@ public class Wait<Subject> extends FluentWait<Subject> {
 
     @Override
     public Wait<Subject> withMessage(String message) {
+        this.statisticsKey = message;
         return (Wait<Subject>) super.withMessage(message);
     }
 
     @Override
     public Wait<Subject> pollingEvery(long duration, TimeUnit unit) {
+        sleeper.fixed();
         return (Wait<Subject>) super.pollingEvery(duration, unit);
     }
 
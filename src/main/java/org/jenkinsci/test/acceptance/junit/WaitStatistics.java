@@ -0,0 +1,105 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated statistics of all {@link Wait}s performed in this JVM.
+ *
+ * Waits are grouped by their message pattern, before the arguments are filled in, so it is easy to identify the ones
+ * that consume most of the time.
+ */
+public final class WaitStatistics {
+    public enum Outcome {SUCCESS, TIMEOUT, FAILURE}
+
+    private static final WaitStatistics INSTANCE = new WaitStatistics();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public static WaitStatistics get() {
+        return INSTANCE;
+    }
+
+    /*package*/ WaitStatistics() {}
+
+    /**
+     * Statistics of all waits with the same name.
+     */
+    public static final class Entry {
+        public final String name;
+        private int waits;
+        private int polls;
+        private long millis;
+        private final Map<Outcome, Integer> outcomes = new HashMap<>();
+
+        private Entry(String name) {
+            this.name = name;
+        }
+
+        public int getWaits() {
+            return waits;
+        }
+
+        public int getPolls() {
+            return polls;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public int getCount(Outcome outcome) {
+            Integer count = outcomes.get(outcome);
+            return count == null ? 0 : count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%6d ms in %4d waits (%5d polls, %d timeouts, %d failures): %s",
+                    millis, waits, polls, getCount(Outcome.TIMEOUT), getCount(Outcome.FAILURE), name
+            );
+        }
+    }
+
+    /*package*/ synchronized void record(String name, int polls, long millis, Outcome outcome) {
+        Entry e = entries.get(name);
+        if (e == null) {
+            entries.put(name, e = new Entry(name));
+        }
+        e.waits++;
+        e.polls += polls;
+        e.millis += millis;
+        e.outcomes.put(outcome, e.getCount(outcome) + 1);
+    }
+
+    /**
+     * Entries sorted by the time spent waiting, the most expensive first.
+     */
+    public synchronized List<Entry> getEntries() {
+        List<Entry> list = new ArrayList<>(entries.values());
+        Collections.sort(list, new Comparator<Entry>() {
+            @Override public int compare(Entry o1, Entry o2) {
+                return Long.compare(o2.millis, o1.millis);
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Print the most expensive waits.
+     */
+    public void report(PrintStream out, int limit) {
+        List<Entry> list = getEntries();
+        if (list.isEmpty()) return;
+
+        out.println("Most expensive waits:");
+        for (Entry e : list.subList(0, Math.min(limit, list.size()))) {
+            out.println("  " + e);
+        }
+    }
+}
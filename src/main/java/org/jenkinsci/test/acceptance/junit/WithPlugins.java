@@ -13,8 +13,10 @@ import java.util.Map;
 import java.util.logging.Logger;
 
 import com.google.common.annotations.VisibleForTesting;
+import org.jenkinsci.test.acceptance.controller.JenkinsController;
+import org.jenkinsci.test.acceptance.controller.LocalController;
+import org.jenkinsci.test.acceptance.po.InstalledPlugins;
 import org.jenkinsci.test.acceptance.po.Jenkins;
-import org.jenkinsci.test.acceptance.po.Plugin;
 import org.jenkinsci.test.acceptance.po.PluginManager;
 import org.jenkinsci.test.acceptance.update_center.PluginSpec;
 import org.jenkinsci.test.acceptance.update_center.UpdateCenterMetadata.UnableToResolveDependencies;
@@ -109,6 +111,22 @@ public @interface WithPlugins {
             return new ArrayList<>(plugins.values());
         }
 
+        /**
+         * Plugins required by the test, combined from the method and the class hierarchy.
+         */
+        /*package*/ static List<PluginSpec> requiredBy(Description d) {
+            List<WithPlugins> wp = new LinkedList<>();
+            wp.add(d.getAnnotation(WithPlugins.class));
+
+            Class<?> testClass = d.getTestClass();
+            while (testClass != null) {
+                wp.add(testClass.getAnnotation(WithPlugins.class));
+                testClass = testClass.getSuperclass();
+            }
+
+            return combinePlugins(wp);
+        }
+
         @Override
         public Statement apply(final Statement base, final Description d) {
             return new Statement() {
@@ -117,21 +135,22 @@ public @interface WithPlugins {
                 public void evaluate() throws Throwable {
                     jenkins = injector.getInstance(Jenkins.class);
 
-                    List<WithPlugins> wp = new LinkedList<>();
-                    wp.add(d.getAnnotation(WithPlugins.class));
-
-                    Class<?> testClass = d.getTestClass();
-                    while (testClass != null) {
-                        wp.add(testClass.getAnnotation(WithPlugins.class));
-                        testClass = testClass.getSuperclass();
+                    List<PluginSpec> plugins = requiredBy(d);
+                    try (Timings.Timer t = Timings.get().start("plugins.install")) {
+                        installPlugins(plugins);
                     }
 
-                    List<PluginSpec> plugins = combinePlugins(wp);
-                    installPlugins(plugins);
+                    JenkinsController controller = injector.getInstance(JenkinsController.class);
+                    if (controller instanceof LocalController) {
+                        ((LocalController) controller).captureHomeSnapshot();
+                    }
 
+                    InstalledPlugins installed = jenkins.getInstalledPlugins();
                     for (PluginSpec plugin : plugins) {
-                        Plugin installedPlugin = jenkins.getPlugin(plugin.getName());
-                        VersionNumber installedVersion = installedPlugin.getVersion();
+                        VersionNumber installedVersion = installed.getVersion(plugin.getName());
+                        if (installedVersion == null) {
+                            throw new IllegalArgumentException(plugin.getName() + " plugin not installed");
+                        }
                         String version = installedVersion.toString();
                         pluginReporter.log(
                                 d.getClassName() + "." + d.getMethodName(),
@@ -0,0 +1,78 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jenkinsci.test.acceptance.po.Folder;
+import org.jenkinsci.test.acceptance.po.Jenkins;
+import org.jenkinsci.test.acceptance.po.PageObject;
+import org.jenkinsci.test.acceptance.po.PluginManager;
+import org.jenkinsci.test.acceptance.update_center.PluginSpec;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Confines the test to its own folder so it can run concurrently with other such tests against one Jenkins.
+ *
+ * <p>
+ * All the tests with this annotation running in the JVM share one Jenkins instance. Every test gets a folder with
+ * a random name available through {@link TenantFolder} and is expected to create all its items in there and leave
+ * the global configuration alone. The tests run in parallel when JUnit is configured to do so, except a test that
+ * installs plugins not installed by the tests before it, as that can restart Jenkins. Its setup waits for the running
+ * tests to finish and the other tests wait for its setup.
+ */
+@Retention(RUNTIME)
+@Target({METHOD, TYPE})
+@Inherited
+@Documented
+@RuleAnnotation(value = WithTenantFolder.RuleImpl.class, priority = WithPlugins.PRIORITY + 1) // requires plugins
+public @interface WithTenantFolder {
+
+    public class RuleImpl implements TestRule {
+        private static final Logger LOGGER = Logger.getLogger(WithTenantFolder.class.getName());
+
+        /*package*/ static final String FOLDER_PLUGIN = "cloudbees-folder";
+
+        @Inject
+        Injector injector;
+
+        @Override
+        public Statement apply(final Statement base, final Description d) {
+            return new Statement() {
+                @Override
+                public void evaluate() throws Throwable {
+                    Jenkins jenkins = injector.getInstance(Jenkins.class);
+                    PluginManager pm = jenkins.getPluginManager();
+                    PluginSpec folders = new PluginSpec(FOLDER_PLUGIN);
+                    if (!pm.isInstalled(folders)) {
+                        pm.installPlugins(folders);
+                    }
+
+                    Folder folder = jenkins.jobs.create(Folder.class, PageObject.createRandomName());
+                    injector.getInstance(TenantFolder.class).setFolder(folder);
+                    try {
+                        base.evaluate();
+                    } finally {
+                        try {
+                            folder.delete();
+                        } catch (RuntimeException e) {
+                            LOGGER.log(Level.WARNING, "Failed to delete tenant folder " + folder.name, e);
+                        }
+                    }
+                }
+            };
+        }
+    }
+}
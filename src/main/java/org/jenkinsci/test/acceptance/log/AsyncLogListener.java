@@ -0,0 +1,129 @@
+package org.jenkinsci.test.acceptance.log;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers the log to a slow {@link LogListener} from a dedicated thread so it does not hold back the reader.
+ *
+ * Lines are handed over in batches. Delegate implementing {@link Flushable} is flushed after every batch.
+ */
+public class AsyncLogListener implements LogListener {
+    /*package*/ static final int CAPACITY = 64 * 1024;
+
+    private final LogListener delegate;
+    private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final Thread consumer;
+
+    public AsyncLogListener(String name, LogListener delegate) {
+        this.delegate = delegate;
+        this.consumer = new Thread(new Consumer(), name);
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void processLine(String line) throws IOException {
+        try {
+            // Block when the consumer falls too much behind rather than losing the log
+            queue.put(line);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while delivering log", e);
+        }
+    }
+
+    @Override
+    public void processClose(Exception t) {
+        try {
+            // The delegate must get closed even when the consumer is behind
+            queue.put(new Close(t));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warning("Interrupted while delivering log close to " + delegate);
+        }
+    }
+
+    /**
+     * Wait until the lines received so far are delivered to the delegate and flushed.
+     *
+     * @return false if the timeout elapsed first.
+     */
+    public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Drain drain = new Drain();
+        while (!queue.offer(drain, 100, TimeUnit.MILLISECONDS)) {
+            if (!consumer.isAlive()) return true; // Closed, everything delivered
+            if (System.nanoTime() > deadline) return false;
+        }
+        while (!drain.done.await(100, TimeUnit.MILLISECONDS)) {
+            if (!consumer.isAlive()) return true;
+            if (System.nanoTime() > deadline) return false;
+        }
+        return true;
+    }
+
+    private static final class Close {
+        private final Exception cause;
+
+        private Close(Exception cause) {
+            this.cause = cause;
+        }
+    }
+
+    private static final class Drain {
+        private final CountDownLatch done = new CountDownLatch(1);
+    }
+
+    private final class Consumer implements Runnable {
+        @Override
+        public void run() {
+            List<Object> batch = new ArrayList<>();
+            try {
+                while (true) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch);
+                    List<Drain> drains = new ArrayList<>();
+                    for (Object item : batch) {
+                        if (item instanceof Close) {
+                            delegate.processClose(((Close) item).cause);
+                            return;
+                        }
+                        if (item instanceof Drain) {
+                            drains.add((Drain) item);
+                            continue;
+                        }
+                        try {
+                            delegate.processLine((String) item);
+                        } catch (IOException e) {
+                            LOGGER.log(Level.WARNING, "Failed to deliver log to " + delegate, e);
+                        }
+                    }
+                    batch.clear();
+                    if (delegate instanceof Flushable) {
+                        try {
+                            ((Flushable) delegate).flush();
+                        } catch (IOException e) {
+                            LOGGER.log(Level.WARNING, "Failed to flush " + delegate, e);
+                        }
+                    }
+                    for (Drain d : drains) {
+                        d.done.countDown();
+                    }
+                }
+            } catch (InterruptedException e) {
+                delegate.processClose(e);
+            }
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncLogListener.class.getName());
+}
@@ -0,0 +1,54 @@
+package org.jenkinsci.test.acceptance.log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes the received log to a file.
+ *
+ * Output is buffered, so this is best wrapped in {@link AsyncLogListener} that flushes it after every batch.
+ */
+public class LogFileWriter implements LogListener, Flushable {
+    private final File file;
+    private final Writer out;
+
+    public LogFileWriter(File file) throws FileNotFoundException {
+        this.file = file;
+        this.out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file)));
+    }
+
+    @Override
+    public synchronized void processLine(String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void processClose(Exception t) {
+        try {
+            out.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close " + file, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LogFileWriter " + file;
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(LogFileWriter.class.getName());
+}
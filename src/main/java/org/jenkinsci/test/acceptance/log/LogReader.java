@@ -26,6 +26,11 @@ public class LogReader implements Runnable {
 
     private final LogListener listener;
 
+    /**
+     * Decode the output in large chunks, Jenkins tends to log in bursts.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     public LogReader(InputStream source, LogListener listener) {
         this.source = source;
         this.listener = listener;
@@ -43,7 +48,7 @@ public class LogReader implements Runnable {
     public void run() {
         String line;
         try {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(source));
+            BufferedReader reader = new BufferedReader(new InputStreamReader(source), BUFFER_SIZE);
             while ((line = reader.readLine()) != null) {
                 listener.processLine(line);
             }
@@ -2,7 +2,11 @@ package org.jenkinsci.test.acceptance.log;
 
 import org.apache.http.concurrent.BasicFuture;
 
+import javax.annotation.CheckForNull;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -10,23 +14,41 @@ import java.util.regex.Pattern;
 /**
  * Receives log as {@link LogListener}, and  provides a regular expression pattern matching.
  *
+ * All the active patterns are evaluated in a single pass over the watchers. Patterns that require a literal
+ * substring to match are only evaluated for lines containing it, which is considerably cheaper than running the
+ * regular expression on every line.
+ *
  * @author Vivek Pandey
  * @author Kohsuke Kawaguchi
  */
 public class LogWatcher implements LogListener {
     /**
-     * All the listeners in here is {@link Watcher}s.
+     * Watchers that are yet to match.
      */
-    protected final LogSplitter splitter = new LogSplitter();
+    private final Queue<Watcher> watchers = new ConcurrentLinkedQueue<>();
 
     @Override
     public void processLine(String line) throws IOException {
-        splitter.processLine(line);
+        for (Iterator<Watcher> it = watchers.iterator(); it.hasNext();) {
+            Watcher w = it.next();
+            if (w.literal != null && !line.contains(w.literal)) continue;
+
+            Matcher m = w.pattern.matcher(line);
+            if (m.find()) {
+                w.completed(m);
+                it.remove();
+            }
+        }
     }
 
     @Override
     public void processClose(Exception t) {
-        splitter.processClose(t);
+        if (t==null)
+            t = new IOException("Regular termination");
+        for (Iterator<Watcher> it = watchers.iterator(); it.hasNext();) {
+            it.next().failed(t);
+            it.remove();
+        }
     }
 
     /**
@@ -36,32 +58,70 @@ public class LogWatcher implements LogListener {
      */
     public Future<Matcher> watch(Pattern regexp) {
         Watcher w = new Watcher(regexp);
-        splitter.addLogListener(w);
+        watchers.add(w);
         return w;
     }
 
-    class Watcher extends BasicFuture<Matcher> implements LogListener {
+    /**
+     * Find a substring that every line matching the pattern contains.
+     *
+     * @return null if there is no such substring or the pattern is too complex to tell.
+     */
+    /*package*/ static @CheckForNull String requiredLiteral(Pattern pattern) {
+        String regex = pattern.pattern();
+        // Flags, alternatives and quoting change the meaning of literal characters
+        if (pattern.flags() != 0 || regex.contains("|") || regex.contains("(?") || regex.contains("\\Q")) return null;
+
+        String best = "";
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                // Escape sequences are either character classes or single characters, keep it simple
+                i++;
+            } else if (c == '[') {
+                // Skip character class
+                i++;
+                if (i < regex.length() && regex.charAt(i) == '^') i++;
+                if (i < regex.length() && regex.charAt(i) == ']') i++;
+                while (i < regex.length() && regex.charAt(i) != ']') {
+                    if (regex.charAt(i) == '\\') i++;
+                    i++;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth > 0) {
+                continue; // Groups can be optional
+            } else if (c == '?' || c == '*' || c == '{') {
+                // The preceding character is not required
+                if (run.length() > 0) run.setLength(run.length() - 1);
+                if (c == '{') {
+                    while (i < regex.length() && regex.charAt(i) != '}') i++;
+                }
+            } else if (c != '+' && c != '.' && c != '^' && c != '$') {
+                run.append(c);
+                continue;
+            }
+
+            if (run.length() > best.length()) best = run.toString();
+            run.setLength(0);
+        }
+        if (run.length() > best.length()) best = run.toString();
+
+        return best.isEmpty() ? null : best;
+    }
+
+    class Watcher extends BasicFuture<Matcher> {
         private final Pattern pattern;
+        private final String literal;
 
         public Watcher(Pattern pattern) {
             super(null);
             this.pattern = pattern;
-        }
-
-        @Override
-        public void processLine(String line) throws IOException {
-            Matcher m = pattern.matcher(line);
-            if (m.find()) {
-                completed(m);
-                splitter.removeLogListener(this);
-            }
-        }
-
-        @Override
-        public void processClose(Exception t) {
-            if (t==null)
-                t = new IOException("Regular termination");
-            failed(t);
+            this.literal = requiredLiteral(pattern);
         }
     }
 }
@@ -17,4 +17,9 @@ public class LabelParameter extends Parameter {
     public void fillWith(Object v) {
         control("label").set(v.toString());
     }
+
+    @Override
+    public String getRequestValue(Object v) {
+        return v.toString();
+    }
 }
@@ -1,9 +1,12 @@
 package org.jenkinsci.test.acceptance.po;
 
+import javax.annotation.CheckForNull;
 import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
@@ -15,6 +18,7 @@ import org.jenkinsci.test.acceptance.Matchers;
 import org.jenkinsci.test.acceptance.junit.Wait;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.openqa.selenium.Alert;
+import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -28,25 +32,45 @@ import static org.jenkinsci.test.acceptance.Matchers.pageObjectExists;
 public class Build extends ContainerPageObject {
     public enum Result {SUCCESS, UNSTABLE, FAILURE, ABORTED, NOT_BUILT}
 
+    private static final Pattern QUEUE_ITEM = Pattern.compile("/queue/item/(\\d+)/?$");
+
     public final Job job;
 
     private Result result;
 
     private boolean success;
 
+    /**
+     * Queue item the build was scheduled as, null when the build is identified by its URL.
+     */
+    private final URL queueItem;
+
+    /**
+     * URL of the build once it has left the queue.
+     */
+    private URL resolved;
+
     public Build(Job job, int buildNumber) {
         super(job.injector, job.url("%d/", buildNumber));
         this.job = job;
+        this.queueItem = null;
     }
 
     public Build(Job job, String permalink) {
         super(job.injector, job.url(permalink + "/"));
         this.job = job;
+        this.queueItem = null;
     }
 
+    /**
+     * @param url URL of the build or of the queue item it is scheduled as. The number of the build is read from the
+     *            queue item once it leaves the queue and all the URLs, {@link #url} included, point to the build from
+     *            then on. Jenkins forgets the items some minutes after they have left the queue.
+     */
     public Build(Job job, URL url) {
         super(job.injector, url);
         this.job = job;
+        this.queueItem = url.getPath().contains("/queue/item/") ? url : null;
     }
 
     /**
@@ -56,7 +80,63 @@ public class Build extends ContainerPageObject {
         if (type.isInstance(this)) {
             return type.cast(this);
         }
-        return newInstance(type, job, url);
+        URL buildUrl;
+        try {
+            buildUrl = getBuildUrl();
+        } catch (NoSuchElementException e) {
+            // Not left the queue yet, the new instance reads the number later
+            buildUrl = url;
+        }
+        return newInstance(type, job, buildUrl);
+    }
+
+    @Override
+    public WebDriver open() {
+        return visit(url(""));
+    }
+
+    @Override
+    public URL url(String rel) {
+        try {
+            return new URL(getBuildUrl(), rel);
+        } catch (MalformedURLException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Id of the queue item the build was scheduled as, null unless the build is waiting in the queue as far as known.
+     */
+    /*package*/ @CheckForNull Integer getQueueId() {
+        if (queueItem == null || resolved != null) return null;
+
+        java.util.regex.Matcher m = QUEUE_ITEM.matcher(queueItem.getPath());
+        return m.find() ? Integer.valueOf(m.group(1)) : null;
+    }
+
+    /**
+     * @throws NoSuchElementException When the build has not left the queue yet.
+     */
+    private URL getBuildUrl() {
+        if (queueItem == null) return url;
+
+        if (resolved == null) {
+            JsonNode json;
+            try {
+                json = injector.getInstance(JsonApiClient.class).get(new URL(queueItem, "api/json"));
+            } catch (IOException e) {
+                throw new NoSuchElementException("Failed to read from " + queueItem + ": " + e);
+            }
+            JsonNode executable = json.get("executable");
+            if (executable == null || !executable.has("number")) {
+                throw new NoSuchElementException(String.format(
+                        "Build of %s %s", job, json.path("cancelled").asBoolean() ? "was cancelled" : "is in the queue"
+                ));
+            }
+            resolved = job.url("%d/", executable.get("number").asInt());
+            url = resolved;
+        }
+        return resolved;
     }
 
     public void delete() {
@@ -95,6 +175,11 @@ public class Build extends ContainerPageObject {
         }
     }
 
+    /**
+     * Wait for the build to finish.
+     *
+     * @see BuildSet to wait for several builds at once.
+     */
     public Build waitUntilFinished() {
         return waitUntilFinished(120);
     }
@@ -107,22 +192,39 @@ public class Build extends ContainerPageObject {
         // one can see what the build is doing
         visit("console");
 
+        if (result != null) {
+            return this;
+        }
+
+        // Follow the console instead of polling the JSON API. It is a single request that tells both the new output
+        // and whether the build has completed.
+        final ProgressiveConsole console = new ProgressiveConsole(this);
         waitFor().withMessage("Build %s is finished", this)
                 .withTimeout(timeout, TimeUnit.SECONDS)
                 .until(new Wait.Predicate<Boolean>() {
                     @Override
                     public Boolean apply() throws Exception {
-                        return !isInProgress();
+                        return console.poll();
                     }
 
                     @Override
                     public String diagnose(Throwable lastException, String message) {
-                        return "Console output:\n" + Build.this.getConsole() + "\n";
+                        return "Console output:\n" + console.getText() + "\n";
                     }
         });
+
+        // The log is closed only after the build has completed so the result is known
+        result = Result.valueOf(getJson("tree=result").get("result").asText());
         return this;
     }
 
+    /**
+     * Record the result learned elsewhere, such as by {@link BuildSet}.
+     */
+    /*package*/ void setResult(Result result) {
+        this.result = result;
+    }
+
     public boolean isInProgress() {
         if (result != null) {
             return false;
@@ -194,7 +296,6 @@ public class Build extends ContainerPageObject {
         }
 
         waitUntilFinished();
-        result = Result.valueOf(getJson().get("result").asText());
         return result.name();
     }
 
@@ -291,6 +392,13 @@ public class Build extends ContainerPageObject {
 
     @Override
     public String toString() {
+        if (queueItem != null && resolved == null) {
+            try {
+                getBuildUrl();
+            } catch (NoSuchElementException e) {
+                return job + " queued as " + queueItem;
+            }
+        }
         return getName();
     }
 
@@ -0,0 +1,262 @@
+package org.jenkinsci.test.acceptance.po;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.jenkinsci.test.acceptance.po.Build.Result;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Several builds waited for together.
+ *
+ * <p>
+ * Rather than waiting for every {@link Build} in turn, all the builds are watched by a single poll loop. Every cycle
+ * asks Jenkins once what is running on its executors and once what is waiting in the queue, so the cost of a cycle does
+ * not grow with the number of builds. The number of a build is read once it has left the queue and its result once it
+ * is no longer running.
+ *
+ * <pre>
+ * BuildSet builds = new BuildSet(job.scheduleBuild(), job.scheduleBuild());
+ * for (Build b : builds.waitUntilAllFinished()) {
+ *     b.shouldSucceed();
+ * }
+ * </pre>
+ *
+ * @see Build#waitUntilFinished()
+ */
+public class BuildSet implements Iterable<Build> {
+    private final List<Build> builds;
+
+    /**
+     * Finished builds in order of completion.
+     */
+    private final List<Build> finished = new ArrayList<>();
+
+    // Builds are tracked by identity as their equality is determined by the remote API
+    private final Set<Build> done = Collections.newSetFromMap(new IdentityHashMap<Build, Boolean>());
+
+    /**
+     * Numbered URL of each started build.
+     */
+    private final Map<Build, URL> started = new IdentityHashMap<>();
+
+    /**
+     * Builds identified by number or permalink found not to exist yet.
+     */
+    private final Set<Build> notStarted = Collections.newSetFromMap(new IdentityHashMap<Build, Boolean>());
+
+    public BuildSet(Build... builds) {
+        this(Arrays.asList(builds));
+    }
+
+    public BuildSet(Collection<? extends Build> builds) {
+        if (builds.isEmpty()) throw new IllegalArgumentException("No builds to wait for");
+        this.builds = new ArrayList<>(builds);
+    }
+
+    @Override
+    public Iterator<Build> iterator() {
+        return Collections.unmodifiableList(builds).iterator();
+    }
+
+    /**
+     * Builds finished so far in order of completion.
+     */
+    public List<Build> getFinished() {
+        return Collections.unmodifiableList(new ArrayList<>(finished));
+    }
+
+    public BuildSet waitUntilAllFinished() {
+        return waitUntilAllFinished(120);
+    }
+
+    public BuildSet waitUntilAllFinished(int timeout) {
+        return waitUntilAllFinished(timeout, null);
+    }
+
+    /**
+     * Wait for all the builds to finish.
+     *
+     * @param onFinished Notified about every build as soon as it finishes.
+     */
+    public BuildSet waitUntilAllFinished(int timeout, @CheckForNull Consumer<Build> onFinished) {
+        waitUntilFinished(timeout, builds.size(), onFinished);
+        return this;
+    }
+
+    public Build waitUntilAnyFinished() {
+        return waitUntilAnyFinished(120);
+    }
+
+    /**
+     * Wait for any of the builds to finish.
+     *
+     * @return The build that has finished first.
+     */
+    public Build waitUntilAnyFinished(int timeout) {
+        waitUntilFinished(timeout, 1, null);
+        return finished.get(0);
+    }
+
+    /**
+     * Wait for all the builds to finish and notify about them in the order they were given.
+     *
+     * @param onFinished Notified about every build as soon as it and all the builds before it have finished.
+     */
+    public BuildSet waitUntilFinishedInOrder(int timeout, final Consumer<Build> onFinished) {
+        final int[] next = new int[1];
+        waitUntilFinished(timeout, builds.size(), new Consumer<Build>() {
+            @Override public void accept(Build build) {
+                while (next[0] < builds.size() && done.contains(builds.get(next[0]))) {
+                    onFinished.accept(builds.get(next[0]++));
+                }
+            }
+        });
+        return this;
+    }
+
+    private void waitUntilFinished(int timeout, final int count, @CheckForNull final Consumer<Build> onFinished) {
+        final Build first = builds.get(0);
+        final JsonApiClient client = first.injector.getInstance(JsonApiClient.class);
+        final URL computers = first.getJenkins().url(
+                "computer/api/json?tree=computer[executors[currentExecutable[url,queueId]],oneOffExecutors[currentExecutable[url,queueId]]]"
+        );
+        final URL queue = first.getJenkins().url("queue/api/json?tree=items[id,task[url]]");
+
+        // Describing the builds reads them, which fails for the ones that have not started
+        first.waitFor().withMessage("%d of %d builds are finished", count, builds.size())
+                .withTimeout(timeout, TimeUnit.SECONDS)
+                .until(new Callable<Boolean>() {
+                    @Override public Boolean call() throws Exception {
+                        if (finished.size() >= count) return true;
+
+                        Executors running = new Executors(client.get(computers));
+                        Queue queued = new Queue(client.get(queue));
+                        for (Build b : builds) {
+                            if (done.contains(b)) continue;
+
+                            URL url = started.get(b);
+                            if (url == null) {
+                                Integer id = b.getQueueId();
+                                if (id != null) {
+                                    if (queued.ids.contains(id)) continue;
+                                    url = running.byQueueId.get(id);
+                                } else if (running.paths.contains(b.url.getPath())) {
+                                    url = b.url;
+                                } else if (notStarted.contains(b) && queued.jobs.contains(b.job.url.getPath())) {
+                                    // Still waiting in the queue most likely, check once the job has nothing queued
+                                    continue;
+                                }
+                                if (url == null) {
+                                    url = started(b, client);
+                                }
+                                if (url == null) {
+                                    notStarted.add(b);
+                                    continue;
+                                }
+                                started.put(b, url);
+                            }
+                            if (running.paths.contains(url.getPath())) continue;
+
+                            // Not running any longer, or not yet assigned to the executor
+                            JsonNode json = client.get(new URL(url, "api/json?tree=building,result"));
+                            if (json.path("building").asBoolean() || !json.path("result").isTextual()) continue;
+
+                            b.setResult(Result.valueOf(json.get("result").asText()));
+                            finished.add(b);
+                            done.add(b);
+                            if (onFinished != null) {
+                                onFinished.accept(b);
+                            }
+                        }
+                        return finished.size() >= count;
+                    }
+        });
+    }
+
+    /**
+     * Builds running on any of the executors.
+     */
+    private static final class Executors {
+        private final Set<String> paths = new HashSet<>();
+        private final Map<Integer, URL> byQueueId = new HashMap<>();
+
+        private Executors(JsonNode computers) throws MalformedURLException {
+            for (JsonNode computer : computers.path("computer")) {
+                for (String kind : Arrays.asList("executors", "oneOffExecutors")) {
+                    for (JsonNode executor : computer.path(kind)) {
+                        JsonNode executable = executor.path("currentExecutable");
+                        if (!executable.path("url").isTextual()) continue;
+
+                        URL url = new URL(executable.get("url").asText());
+                        paths.add(url.getPath());
+                        // Not exported before 1.601
+                        if (executable.path("queueId").isNumber()) {
+                            byQueueId.put(executable.get("queueId").asInt(), url);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Items waiting in the queue.
+     */
+    private static final class Queue {
+        private final Set<Integer> ids = new HashSet<>();
+
+        /**
+         * Paths of the jobs with items in the queue.
+         */
+        private final Set<String> jobs = new HashSet<>();
+
+        private Queue(JsonNode queue) throws MalformedURLException {
+            for (JsonNode item : queue.path("items")) {
+                ids.add(item.path("id").asInt());
+                JsonNode url = item.path("task").path("url");
+                if (url.isTextual()) {
+                    jobs.add(new URL(url.asText()).getPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * URL of the build using its number, so it matches the one reported by executors even for permalinks.
+     *
+     * @return null if the build has not started yet.
+     */
+    private @CheckForNull URL started(Build build, JsonApiClient client) throws MalformedURLException {
+        JsonNode json;
+        try {
+            json = client.get(build.url("api/json?tree=number"));
+        } catch (IOException|NoSuchElementException e) {
+            return null; // Not started yet
+        }
+        return build.job.url("%d/", json.get("number").asInt());
+    }
+
+    @Override
+    public String toString() {
+        return builds.toString();
+    }
+}
@@ -10,6 +10,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.hamcrest.StringDescription;
 import org.jenkinsci.test.acceptance.junit.Resource;
+import org.jenkinsci.test.acceptance.junit.Timings;
 import org.jenkinsci.test.acceptance.junit.Wait;
 import org.jenkinsci.test.acceptance.utils.ElasticTime;
 import org.openqa.selenium.Alert;
@@ -88,7 +89,9 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
      * @param url URL relative to the context path of Jenkins, such as "/about" or "/job/foo/configure".
      */
     protected final WebDriver visit(URL url) {
-        driver.get(url.toExternalForm());
+        try (Timings.Timer t = Timings.get().start("visit")) {
+            driver.get(url.toExternalForm());
+        }
         return driver;
     }
 
@@ -132,7 +135,7 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
     @Override
     public <T> Wait<T> waitFor(T subject) {
         return new Wait<T>(subject, time)
-                .pollingEvery(500, TimeUnit.MILLISECONDS)
+                .withBackoff(50, 1000, TimeUnit.MILLISECONDS)
                 .withTimeout(120, TimeUnit.SECONDS)
         ;
     }
@@ -201,7 +204,7 @@ public class CapybaraPortingLayerImpl implements CapybaraPortingLayer {
      */
     @Override
     public WebElement find(final By selector) {
-        try {
+        try (Timings.Timer t = Timings.get().start("find")) {
             return waitFor().withTimeout(time.seconds(1), TimeUnit.MILLISECONDS).until(new Callable<WebElement>() {
                 @Override public WebElement call() throws Exception {
                     for (WebElement element : driver.findElements(selector)) {
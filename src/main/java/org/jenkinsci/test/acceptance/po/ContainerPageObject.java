@@ -1,14 +1,15 @@
 package org.jenkinsci.test.acceptance.po;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.test.acceptance.junit.Timings;
+import org.jenkinsci.test.acceptance.utils.ElasticTimeCalibrator;
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.WebElement;
@@ -55,19 +56,29 @@ public abstract class ContainerPageObject extends ConfigurablePageObject {
      * @param queryString Additional query string to narrow down the data retrieval, like "tree=..." or "depth=..."
      */
     public JsonNode getJson(String queryString) {
+        return getJson(queryString, 0, TimeUnit.MILLISECONDS);
+    }
 
+    /**
+     * Obtains JSON representation read no longer than <tt>maxAge</tt> ago.
+     *
+     * Useful when the same data are read repeatedly and they are not expected to change.
+     *
+     * @param queryString Additional query string to narrow down the data retrieval, like "tree=..." or "depth=..."
+     */
+    public JsonNode getJson(String queryString, long maxAge, TimeUnit unit) {
         URL url = getJsonApiUrl();
-        try {
+        try (Timings.Timer t = Timings.get().start("getJson")) {
             if (queryString != null) {
                 url = new URL(url + "?" + queryString);
             }
 
-            // Pass in all the cookies (in particular the session cookie.)
-            // This ensures that the API call sees what the current user sees.
-            HttpURLConnection con = (HttpURLConnection) url.openConnection();
-            con.setRequestProperty("Cookie", StringUtils.join(driver.manage().getCookies(), ";"));
-
-            return jsonParser.readTree(con.getInputStream());
+            long start = System.nanoTime();
+            JsonNode json = injector.getInstance(JsonApiClient.class).get(url, maxAge, unit);
+            if (maxAge <= 0 && ElasticTimeCalibrator.isEnabled()) { // Not served from cache
+                ElasticTimeCalibrator.get().sampleLatency(System.nanoTime() - start);
+            }
+            return json;
         } catch (MalformedURLException e) {
             throw new Error(e);
         } catch (IOException e) {
@@ -0,0 +1,62 @@
+package org.jenkinsci.test.acceptance.po;
+
+import javax.annotation.CheckForNull;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import hudson.util.VersionNumber;
+
+/**
+ * Snapshot of plugins installed in Jenkins, read in a single request.
+ *
+ * @see Jenkins#getInstalledPlugins()
+ */
+public class InstalledPlugins {
+    private final Map<String, VersionNumber> versions = new HashMap<>();
+    private final Set<String> active = new HashSet<>();
+
+    /**
+     * @param json Response to <tt>pluginManager/api/json?tree=plugins[shortName,version,active]</tt>.
+     */
+    /*package*/ InstalledPlugins(JsonNode json) {
+        for (JsonNode plugin : json.get("plugins")) {
+            String name = plugin.get("shortName").asText();
+            versions.put(name, new VersionNumber(plugin.get("version").asText()));
+            if (plugin.path("active").asBoolean()) {
+                active.add(name);
+            }
+        }
+    }
+
+    public boolean isInstalled(String name) {
+        return versions.containsKey(name);
+    }
+
+    public boolean isActive(String name) {
+        return active.contains(name);
+    }
+
+    /**
+     * @return null if not installed.
+     */
+    public @CheckForNull VersionNumber getVersion(String name) {
+        return versions.get(name);
+    }
+
+    /**
+     * Versions of all installed plugins by their short names.
+     */
+    public Map<String, VersionNumber> getVersions() {
+        return Collections.unmodifiableMap(versions);
+    }
+
+    @Override
+    public String toString() {
+        return "InstalledPlugins" + versions;
+    }
+}
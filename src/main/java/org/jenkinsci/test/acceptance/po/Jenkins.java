@@ -28,12 +28,25 @@ import hudson.util.VersionNumber;
 public class Jenkins extends Node implements Container {
     private VersionNumber version;
 
+    private InstalledPlugins installedPlugins;
+
+    /**
+     * Controller running this Jenkins.
+     */
+    private final JenkinsController controller;
+
+    /**
+     * {@link JenkinsController#getStartCount()} at the time {@link #installedPlugins} were read.
+     */
+    private int installedPluginsStart;
+
     public final JobsMixIn jobs;
     public final ViewsMixIn views;
     public final SlavesMixIn slaves;
 
-    private Jenkins(Injector injector, URL url) {
+    private Jenkins(Injector injector, URL url, JenkinsController controller) {
         super(injector,url);
+        this.controller = controller;
         getVersion();
         jobs = new JobsMixIn(this);
         views = new ViewsMixIn(this);
@@ -46,7 +59,7 @@ public class Jenkins extends Node implements Container {
     }
 
     public Jenkins(Injector injector, JenkinsController controller) {
-        this(injector, startAndGetUrl(controller));
+        this(injector, startAndGetUrl(controller), controller);
     }
 
     private static URL startAndGetUrl(JenkinsController controller) {
@@ -114,6 +127,7 @@ public class Jenkins extends Node implements Container {
      */
     public void logout(){
         visit(new Logout(this).url);
+        injector.getInstance(JsonApiClient.class).invalidateCookies();
     }
 
     /**
@@ -147,6 +161,7 @@ public class Jenkins extends Node implements Container {
     public void restart() {
         visit("restart");
         clickButton("Yes");
+        invalidateInstalledPlugins();
 
         // Poll until we have the real page
         waitFor(driver).withTimeout(JenkinsController.STARTUP_TIMEOUT, TimeUnit.SECONDS)
@@ -177,6 +192,35 @@ public class Jenkins extends Node implements Container {
         return new Plugin(getPluginManager(), name);
     }
 
+    /**
+     * Versions of all installed plugins by their short names, obtained in a single request.
+     */
+    public Map<String, VersionNumber> getInstalledPluginVersions() {
+        return getInstalledPlugins().getVersions();
+    }
+
+    /**
+     * Snapshot of installed plugins.
+     *
+     * It is read once and reused until plugins are installed or Jenkins is restarted, be it by the page object or
+     * the controller.
+     */
+    public synchronized InstalledPlugins getInstalledPlugins() {
+        int start = controller.getStartCount();
+        if (installedPlugins == null || installedPluginsStart != start) {
+            installedPlugins = new InstalledPlugins(getPluginManager().getJson("tree=plugins[shortName,version,active]"));
+            installedPluginsStart = start;
+        }
+        return installedPlugins;
+    }
+
+    /**
+     * Read installed plugins again next time they are needed.
+     */
+    public synchronized void invalidateInstalledPlugins() {
+        installedPlugins = null;
+    }
+
     public <T extends PageObject> T getPluginPage(Class<T> type) {
         String urlChunk = type.getAnnotation(PluginPageObject.class).value();
 
@@ -1,5 +1,6 @@
 package org.jenkinsci.test.acceptance.po;
 
+import javax.annotation.CheckForNull;
 import javax.inject.Inject;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -7,6 +8,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -16,6 +18,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.io.IOUtils;
@@ -31,6 +35,8 @@ import org.zeroturnaround.zip.ZipUtil;
 
 import com.google.inject.Injector;
 
+import hudson.util.VersionNumber;
+
 import cucumber.api.DataTable;
 import static org.hamcrest.CoreMatchers.*;
 import static org.jenkinsci.test.acceptance.Matchers.*;
@@ -327,7 +333,19 @@ public class Job extends TopLevelItem {
         return scheduleBuild(Collections.emptyMap());
     }
 
+    /**
+     * Schedule the build.
+     *
+     * The build is scheduled by a request and identified from the queue item, unless some of the parameters can only
+     * be entered in the parameterized build form. Returned build has not necessarily started.
+     */
     public Build scheduleBuild(Map<String, ?> params) {
+        Map<String, String> values = getRequestValues(params);
+        if (values != null) {
+            Build build = scheduleBuildByRequest(values);
+            if (build != null) return build;
+        }
+
         open();
         int nb = getJson().get("nextBuildNumber").intValue();
         if (parameters.isEmpty()) {
@@ -345,6 +363,54 @@ public class Job extends TopLevelItem {
         return build(nb);
     }
 
+    /**
+     * @return null if some of the values can only be entered in the parameterized build form.
+     */
+    private @CheckForNull Map<String, String> getRequestValues(Map<String, ?> params) {
+        Map<String, String> values = new HashMap<>();
+        for (Parameter def : parameters) {
+            Object v = params.get(def.getName());
+            if (v != null) {
+                String value = def.getRequestValue(v);
+                if (value == null) return null;
+                values.put(def.getName(), value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return null if the build was not scheduled as Jenkins does not accept the request.
+     */
+    private @CheckForNull Build scheduleBuildByRequest(Map<String, String> values) {
+        if (getJenkins().getVersion().isOlderThan(QUEUE_ITEM_LOCATION)) return null;
+
+        JsonApiClient client = injector.getInstance(JsonApiClient.class);
+        URL item;
+        try {
+            item = client.post(getJenkins(), url(parameters.isEmpty() ? "build?delay=0sec" : "buildWithParameters?delay=0sec"), values);
+        } catch (JsonApiClient.ResponseException ex) {
+            // Anything but a missing endpoint might have scheduled the build already
+            if (ex.getCode() != HttpURLConnection.HTTP_NOT_FOUND && ex.getCode() != HttpURLConnection.HTTP_BAD_METHOD) {
+                throw new AssertionError("Failed to schedule build of " + this, ex);
+            }
+            LOGGER.log(Level.INFO, "Unable to schedule build of " + this + " by request, using the form", ex);
+            return null;
+        } catch (IOException ex) {
+            throw new AssertionError("Failed to schedule build of " + this, ex);
+        }
+
+        if (item == null || !item.getPath().contains("/queue/item/")) {
+            throw new AssertionError("Build of " + this + " was scheduled, but Jenkins has not reported its queue item: " + item);
+        }
+        try {
+            // Numbered once it leaves the queue
+            return new Build(this, item.getPath().endsWith("/") ? item : new URL(item + "/"));
+        } catch (MalformedURLException e) {
+            throw new Error(e);
+        }
+    }
+
     public Build build(int buildNumber) {
         return new Build(this, buildNumber);
     }
@@ -452,4 +518,11 @@ public class Job extends TopLevelItem {
                 hasContent("This project is currently disabled")
         );
     }
+
+    /**
+     * First version responding to the scheduling request with the location of the queue item.
+     */
+    private static final VersionNumber QUEUE_ITEM_LOCATION = new VersionNumber("1.519");
+
+    private static final Logger LOGGER = Logger.getLogger(Job.class.getName());
 }
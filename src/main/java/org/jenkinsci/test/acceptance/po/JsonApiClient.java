@@ -0,0 +1,346 @@
+package org.jenkinsci.test.acceptance.po;
+
+import javax.annotation.CheckForNull;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.test.acceptance.guice.TestScope;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads JSON API of Jenkins under test on behalf of the browser.
+ *
+ * <p>
+ * Requests carry the browser cookies so the API sees what the current user sees. Reading the cookies is a WebDriver
+ * round-trip so the header is cached until the browser navigates, clicks or runs a script, as any of that can change
+ * the session, or until Jenkins rejects the request. Responses are parsed straight from the stream, that is read until
+ * the end so JDK can reuse the connection. Responses with <tt>ETag</tt> are revalidated by conditional requests and
+ * callers can accept responses up to certain age for repeated reads of the same data. Only the last
+ * {@value #MAX_CACHED} responses are kept. Text such as the progressive console is read the same way, uncached.
+ *
+ * <p>
+ * Forms can be posted as well, the crumb is obtained once per session.
+ *
+ * @see ContainerPageObject#getJson(String)
+ */
+@TestScope
+public class JsonApiClient {
+    /*package*/ static final int MAX_CACHED = 256;
+
+    private final WebDriver driver;
+    private final ObjectMapper jsonParser;
+
+    private String cookies;
+
+    /**
+     * Crumb header issued for {@link #crumbCookies}, empty array when CSRF protection is off.
+     */
+    private String[] crumb;
+    private String crumbCookies;
+
+    private final Map<String, Cached> cache = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private static final class Cached {
+        final JsonNode json;
+        final String etag;
+        final long timestamp;
+
+        Cached(JsonNode json, String etag, long timestamp) {
+            this.json = json;
+            this.etag = etag;
+            this.timestamp = timestamp;
+        }
+    }
+
+    @Inject
+    public JsonApiClient(WebDriver driver, ObjectMapper jsonParser) {
+        this.driver = driver;
+        this.jsonParser = jsonParser;
+        if (driver instanceof EventFiringWebDriver) {
+            ((EventFiringWebDriver) driver).register(new SessionListener());
+        }
+    }
+
+    /**
+     * Read fresh JSON from the url.
+     */
+    public JsonNode get(URL url) throws IOException {
+        return get(url, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Read JSON from the url accepting the response read no longer than <tt>maxAge</tt> ago.
+     */
+    public synchronized JsonNode get(URL url, long maxAge, TimeUnit unit) throws IOException {
+        String key = url.toExternalForm();
+        Cached cached = cache.get(key);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.timestamp <= unit.toMillis(maxAge)) {
+            return cached.json;
+        }
+
+        HttpURLConnection con = request(url, cached);
+        int code = con.getResponseCode();
+        if (code == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+            discard(con);
+            cache.put(key, new Cached(cached.json, cached.etag, now));
+            return cached.json;
+        }
+
+        if (code >= 400) {
+            discard(con);
+            throw new IOException("Failed to read " + url + ": " + code + " " + con.getResponseMessage());
+        }
+
+        JsonNode json;
+        try (InputStream in = con.getInputStream()) {
+            json = jsonParser.readTree(in);
+        }
+        cache.put(key, new Cached(json, con.getHeaderField("ETag"), now));
+        return json;
+    }
+
+    /**
+     * Read text from the url, such as the progressive console that is not JSON.
+     */
+    /*package*/ synchronized Text getText(URL url) throws IOException {
+        HttpURLConnection con = request(url, null);
+        int code = con.getResponseCode();
+        if (code >= 400) {
+            discard(con);
+            throw new IOException("Failed to read " + url + ": " + code + " " + con.getResponseMessage());
+        }
+
+        String content;
+        try (InputStream in = con.getInputStream()) {
+            content = IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+        return new Text(content, con);
+    }
+
+    /**
+     * Text response together with its headers.
+     */
+    /*package*/ static final class Text {
+        final String content;
+        private final HttpURLConnection con;
+
+        private Text(String content, HttpURLConnection con) {
+            this.content = content;
+            this.con = con;
+        }
+
+        @CheckForNull String getHeader(String name) {
+            return con.getHeaderField(name);
+        }
+    }
+
+    /**
+     * Post url-encoded form to the url.
+     *
+     * @param jenkins Jenkins to get the crumb from.
+     * @return The <tt>Location</tt> the response points to, or null if there is none.
+     * @throws ResponseException When Jenkins rejects the form.
+     */
+    public synchronized @CheckForNull URL post(Jenkins jenkins, URL url, Map<String, String> form) throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (Map.Entry<String, String> e : form.entrySet()) {
+            if (body.length() > 0) body.append('&');
+            body.append(URLEncoder.encode(e.getKey(), "UTF-8")).append('=').append(URLEncoder.encode(e.getValue(), "UTF-8"));
+        }
+        byte[] data = body.toString().getBytes(StandardCharsets.UTF_8);
+
+        HttpURLConnection con = openPost(jenkins, url, data);
+        int code = con.getResponseCode();
+        if (code == HttpURLConnection.HTTP_UNAUTHORIZED || code == HttpURLConnection.HTTP_FORBIDDEN) {
+            // The session, and therefore the crumb, might have changed since the cookies were read
+            discard(con);
+            invalidateCookies();
+            con = openPost(jenkins, url, data);
+            code = con.getResponseCode();
+        }
+        discard(con);
+
+        if (code >= 400) {
+            throw new ResponseException("Failed to post to " + url + ": " + code + " " + con.getResponseMessage(), code);
+        }
+
+        String location = con.getHeaderField("Location");
+        return location == null ? null : new URL(url, location);
+    }
+
+    /**
+     * Request answered by Jenkins with an error status.
+     */
+    public static final class ResponseException extends IOException {
+        private final int code;
+
+        public ResponseException(String message, int code) {
+            super(message);
+            this.code = code;
+        }
+
+        /**
+         * HTTP status code of the response.
+         */
+        public int getCode() {
+            return code;
+        }
+    }
+
+    /**
+     * Force the cookies to be read from the browser again for the next request.
+     */
+    public synchronized void invalidateCookies() {
+        cookies = null;
+        crumb = null;
+    }
+
+    private HttpURLConnection openPost(Jenkins jenkins, URL url, byte[] data) throws IOException {
+        String[] crumb = getCrumb(jenkins);
+        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+        con.setRequestMethod("POST");
+        con.setInstanceFollowRedirects(false);
+        con.setDoOutput(true);
+        con.setRequestProperty("Cookie", getCookies());
+        con.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        if (crumb.length == 2) {
+            con.setRequestProperty(crumb[0], crumb[1]);
+        }
+        try (OutputStream out = con.getOutputStream()) {
+            out.write(data);
+        }
+        return con;
+    }
+
+    private String[] getCrumb(Jenkins jenkins) throws IOException {
+        String cookies = getCookies();
+        if (crumb == null || !cookies.equals(crumbCookies)) {
+            HttpURLConnection con = open(jenkins.url("crumbIssuer/api/json"), null);
+            if (con.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                discard(con);
+                crumb = new String[0];
+            } else {
+                JsonNode json;
+                try (InputStream in = con.getInputStream()) {
+                    json = jsonParser.readTree(in);
+                }
+                crumb = new String[] {json.get("crumbRequestField").asText(), json.get("crumb").asText()};
+            }
+            crumbCookies = cookies;
+        }
+        return crumb;
+    }
+
+    /**
+     * Send the request, once more with the cookies read again if it is rejected.
+     */
+    private HttpURLConnection request(URL url, @CheckForNull Cached cached) throws IOException {
+        HttpURLConnection con = open(url, cached);
+        int code = con.getResponseCode();
+        if (code == HttpURLConnection.HTTP_UNAUTHORIZED || code == HttpURLConnection.HTTP_FORBIDDEN) {
+            // The session might have changed since the cookies were read
+            discard(con);
+            invalidateCookies();
+            con = open(url, cached);
+        }
+        return con;
+    }
+
+    private HttpURLConnection open(URL url, @CheckForNull Cached cached) throws IOException {
+        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+        con.setRequestProperty("Cookie", getCookies());
+        if (cached != null && cached.etag != null) {
+            con.setRequestProperty("If-None-Match", cached.etag);
+        }
+        return con;
+    }
+
+    /**
+     * Read the cookies again, the crumb is kept unless they differ.
+     */
+    private synchronized void dropCookies() {
+        cookies = null;
+    }
+
+    private String getCookies() {
+        if (cookies == null) {
+            cookies = StringUtils.join(driver.manage().getCookies(), ";");
+        }
+        return cookies;
+    }
+
+    /**
+     * Drops the cookies whenever the browser might have got different ones.
+     */
+    private final class SessionListener extends AbstractWebDriverEventListener {
+        @Override
+        public void afterNavigateTo(String url, WebDriver driver) {
+            dropCookies();
+        }
+
+        @Override
+        public void afterNavigateBack(WebDriver driver) {
+            dropCookies();
+        }
+
+        @Override
+        public void afterNavigateForward(WebDriver driver) {
+            dropCookies();
+        }
+
+        @Override
+        public void afterClickOn(WebElement element, WebDriver driver) {
+            dropCookies();
+        }
+
+        @Override
+        public void afterScript(String script, WebDriver driver) {
+            dropCookies();
+        }
+    }
+
+    /**
+     * Consume the rest of the response so the connection can be kept alive.
+     */
+    private static void discard(HttpURLConnection con) {
+        InputStream in = con.getErrorStream();
+        if (in == null) {
+            try {
+                in = con.getInputStream();
+            } catch (IOException e) {
+                return;
+            }
+        }
+        try {
+            IOUtils.copy(in, new NullOutputStream());
+        } catch (IOException e) {
+            // the connection will not be reused
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+}
@@ -29,6 +29,7 @@ public class Login extends PageObject {
         cUser.set(user);
         cPassword.set(password);
         cLogin.click();
+        injector.getInstance(JsonApiClient.class).invalidateCookies();
         return this;
     }
 
@@ -41,6 +42,7 @@ public class Login extends PageObject {
         driver.findElement(by.name("j_username")).sendKeys(user);
         driver.findElement(by.name("j_password")).sendKeys(password);
         clickButton("log in");
+        injector.getInstance(JsonApiClient.class).invalidateCookies();
         return this;
     }
 
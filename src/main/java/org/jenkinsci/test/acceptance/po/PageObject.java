@@ -39,9 +39,11 @@ public abstract class PageObject extends CapybaraPortingLayerImpl {
     /**
      * Full URL of the object that this page object represents. Ends with '/', like "http://localhsot:8080/job/foo/"
      *
+     * {@link Build} scheduled by a request points to the queue item until the build leaves the queue.
+     *
      * @see ContainerPageObject#url(String) Method that lets you resolve relative paths easily.
      */
-    public final URL url;
+    public URL url;
     
     /**
      * If the object was created with some context, preserve it so that we can
@@ -62,7 +64,9 @@ public abstract class PageObject extends CapybaraPortingLayerImpl {
     }
 
     public static String createRandomName() {
-        return RND.next();
+        synchronized (RND) { // Tests can run concurrently
+            return RND.next();
+        }
     }
 
     public Jenkins getJenkins() {
@@ -1,5 +1,7 @@
 package org.jenkinsci.test.acceptance.po;
 
+import javax.annotation.CheckForNull;
+
 import org.openqa.selenium.By;
 
 /**
@@ -44,6 +46,16 @@ public abstract class Parameter extends PageAreaImpl {
      */
     public abstract void fillWith(Object v);
 
+    /**
+     * Given an subtype-specific value object that represents the actual argument, produce the value to submit to
+     * <tt>buildWithParameters</tt>.
+     *
+     * @return null if the value can only be entered in the parameterized build form.
+     */
+    public @CheckForNull String getRequestValue(Object v) {
+        return null;
+    }
+
     /**
      * Depending on whether we are on the config page or in the build page, this is different.
      */
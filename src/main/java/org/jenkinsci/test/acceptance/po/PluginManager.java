@@ -4,21 +4,30 @@ import javax.annotation.Nullable;
 import javax.inject.Named;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import com.google.common.base.Predicate;
 import org.apache.commons.lang3.StringUtils;
+import org.jenkinsci.test.acceptance.controller.JenkinsController;
+import org.jenkinsci.test.acceptance.controller.LocalController;
 import org.jenkinsci.test.acceptance.junit.WithPlugins;
 import org.jenkinsci.test.acceptance.update_center.PluginMetadata;
 import org.jenkinsci.test.acceptance.update_center.PluginSpec;
 import org.jenkinsci.test.acceptance.update_center.UpdateCenterMetadata.UnableToResolveDependencies;
 import org.jenkinsci.test.acceptance.update_center.UpdateCenterMetadataProvider;
+import org.jenkinsci.test.acceptance.update_center.UpdateCenterMirror;
 import org.junit.internal.AssumptionViolatedException;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebElement;
@@ -34,6 +43,7 @@ import org.apache.http.client.methods.HttpPost;
 import static org.apache.http.entity.ContentType.APPLICATION_OCTET_STREAM;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 
 
@@ -56,6 +66,12 @@ public class PluginManager extends ContainerPageObject {
     @Inject
     private UpdateCenterMetadataProvider ucmd;
 
+    @Inject
+    private UpdateCenterMirror updateCenterMirror;
+
+    @Inject
+    private JenkinsController controller;
+
     /**
      * Optional configuration value that selects whether to resolve plugins locally and upload to Jenkins
      * (better performing when Jenkins is closer to the test execution), or install plugins from within Jenkins
@@ -69,6 +85,16 @@ public class PluginManager extends ContainerPageObject {
     @Named("forceRestartAfterPluginInstallation")
     public boolean forceRestart;
 
+    /**
+     * Number of plugins resolved concurrently when uploading.
+     */
+    private static final int RESOLVER_THREADS = 4;
+
+    /**
+     * Client shared by all uploads of single {@link #installPlugins(PluginSpec...)} call.
+     */
+    private HttpClient uploadClient;
+
     public PluginManager(Jenkins jenkins) {
         super(jenkins.injector, jenkins.url("pluginManager/"));
         this.jenkins = jenkins;
@@ -112,6 +138,14 @@ public class PluginManager extends ContainerPageObject {
         updated = true;
     }
 
+    /**
+     * Controllers running Jenkins on this host seed the JENKINS_HOME with the data of {@link UpdateCenterMirror}.
+     */
+    private boolean isSeededFromMirror() {
+        return updateCenterMirror.isEnabled()
+                && controller instanceof LocalController && ((LocalController) controller).isOnLocalHost();
+    }
+
     public enum InstallationStatus {NOT_INSTALLED, OUTDATED, UP_TO_DATE}
 
     public InstallationStatus installationStatus(String spec) {
@@ -124,21 +158,16 @@ public class PluginManager extends ContainerPageObject {
     public InstallationStatus installationStatus(PluginSpec spec) {
         String name = spec.getName();
         String version = spec.getVersion();
-        Plugin plugin;
-        try {
-            plugin = jenkins.getPlugin(name);
-            if (version != null) {
-                VersionNumber actualVersion = plugin.getVersion();
-                // check if installed version >= required version
-                if (actualVersion.compareTo(new VersionNumber(version)) < 0) {
-                    LOGGER.info(name + " has version " + actualVersion + " but " + version + " was requested");
-                    return InstallationStatus.OUTDATED;
-                }
-            }
-            return InstallationStatus.UP_TO_DATE;
-        } catch (IllegalArgumentException ex) {
+        VersionNumber actualVersion = jenkins.getInstalledPlugins().getVersion(name);
+        if (actualVersion == null) {
             return InstallationStatus.NOT_INSTALLED;
         }
+        // check if installed version >= required version
+        if (version != null && actualVersion.compareTo(new VersionNumber(version)) < 0) {
+            LOGGER.info(name + " has version " + actualVersion + " but " + version + " was requested");
+            return InstallationStatus.OUTDATED;
+        }
+        return InstallationStatus.UP_TO_DATE;
     }
 
     @Deprecated
@@ -180,7 +209,12 @@ public class PluginManager extends ContainerPageObject {
         final Map<String, String> candidates = getMapShortNamesVersion(specs);
 
         if (!updated) {
-            checkForUpdates();
+            if (isSeededFromMirror()) {
+                // Jenkins has the current data from the start
+                updated = true;
+            } else {
+                checkForUpdates();
+            }
         }
 
         LOGGER.info("Installing plugins by direct upload: " + uploadPlugins);
@@ -200,6 +234,7 @@ public class PluginManager extends ContainerPageObject {
                 return false;
             }
             List<PluginMetadata> pluginToBeInstalled = ucmd.get(jenkins).transitiveDependenciesOf(jenkins, Arrays.asList(specs));
+            List<PluginMetadata> toUpload = new ArrayList<>();
             for (PluginMetadata newPlugin: pluginToBeInstalled) {
                 final String name = newPlugin.getName();
                 String requiredVersion = candidates.get(name);
@@ -217,13 +252,10 @@ public class PluginManager extends ContainerPageObject {
                         throw new AssumptionViolatedException(
                                 name + " has version " + availableVersion + " but " + requiredVersion + " was requested");
                     }
-                    try {
-                        newPlugin.uploadTo(jenkins, injector, availableVersion);
-                    } catch (ArtifactResolutionException x) {
-                        throw new UnableToResolveDependencies(x);
-                    }
+                    toUpload.add(newPlugin);
                 }
             }
+            uploadPlugins(toUpload);
         } else {
             visit("available");
 
@@ -262,6 +294,46 @@ public class PluginManager extends ContainerPageObject {
         return false;
     }
 
+    /**
+     * Resolve all the plugins concurrently and upload them in the given order as soon as they are available.
+     */
+    private void uploadPlugins(List<PluginMetadata> plugins) throws UnableToResolveDependencies, IOException {
+        if (plugins.isEmpty()) return;
+
+        ExecutorService resolvers = Executors.newFixedThreadPool(Math.min(RESOLVER_THREADS, plugins.size()));
+        uploadClient = new DefaultHttpClient();
+        try {
+            List<Future<File>> resolved = new ArrayList<>();
+            for (final PluginMetadata plugin : plugins) {
+                resolved.add(resolvers.submit(new Callable<File>() {
+                    @Override public File call() {
+                        return plugin.resolve(injector, plugin.getVersion());
+                    }
+                }));
+            }
+
+            for (Future<File> f : resolved) {
+                try {
+                    installPlugin(f.get());
+                } catch (ExecutionException x) {
+                    Throwable cause = x.getCause();
+                    if (cause.getCause() instanceof ArtifactResolutionException) {
+                        throw new UnableToResolveDependencies((ArtifactResolutionException) cause.getCause());
+                    }
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    if (cause instanceof Error) throw (Error) cause;
+                    throw new IOException(cause);
+                } catch (InterruptedException x) {
+                    throw (IOException) new InterruptedIOException().initCause(x);
+                }
+            }
+        } finally {
+            resolvers.shutdownNow();
+            uploadClient.getConnectionManager().shutdown();
+            uploadClient = null;
+        }
+    }
+
     private void tickPluginToInstall(PluginSpec spec) {
         String name = spec.getName();
         check(find(by.xpath("//input[starts-with(@name,'plugin.%s.')]", name)));
@@ -287,7 +359,7 @@ public class PluginManager extends ContainerPageObject {
      * Installs a plugin by uploading the *.jpi image.
      */
     public void installPlugin(File localFile) throws IOException {
-        HttpClient httpclient = new DefaultHttpClient();
+        HttpClient httpclient = uploadClient != null ? uploadClient : new DefaultHttpClient();
 
         HttpPost post = new HttpPost(jenkins.url("pluginManager/uploadPlugin").toExternalForm());
         HttpEntity e = MultipartEntityBuilder.create()
@@ -296,10 +368,13 @@ public class PluginManager extends ContainerPageObject {
         post.setEntity(e);
 
         HttpResponse response = httpclient.execute(post);
+        jenkins.invalidateInstalledPlugins();
         if (response.getStatusLine().getStatusCode() >= 400) {
             throw new IOException("Failed to upload plugin: " + response.getStatusLine() + "\n" +
                     IOUtils.toString(response.getEntity().getContent()));
         } else {
+            // Consume the response so the connection can be reused
+            EntityUtils.consume(response.getEntity());
             System.out.format("Plugin %s installed\n", localFile);
             if (System.getenv("LOCAL_JARS") != null) {
                 try {
@@ -0,0 +1,66 @@
+package org.jenkinsci.test.acceptance.po;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Follows console output of a build using <tt>logText/progressiveText</tt>.
+ *
+ * <p>
+ * Every request returns only the output produced since the previous one. Jenkins sends the <tt>X-More-Data</tt>
+ * header for as long as the build can produce more output, so its absence means the build has completed.
+ * That makes a single cheap request enough to both learn about the completion and collect the console log.
+ * Requests that fail are retried by the next poll, so a Jenkins that is briefly unavailable does not fail the wait.
+ */
+class ProgressiveConsole {
+    private static final Logger LOGGER = Logger.getLogger(ProgressiveConsole.class.getName());
+
+    private final URL url;
+    private final JsonApiClient client;
+
+    private long offset = 0;
+    private final StringBuilder text = new StringBuilder();
+    private boolean complete = false;
+    private IOException failure;
+
+    ProgressiveConsole(Build build) {
+        this.url = build.url("logText/progressiveText");
+        this.client = build.injector.getInstance(JsonApiClient.class);
+    }
+
+    /**
+     * Fetch the output produced since the last call.
+     *
+     * @return true if the build has completed and there will be no more output.
+     */
+    boolean poll() {
+        if (complete) return true;
+
+        JsonApiClient.Text response;
+        try {
+            response = client.getText(new URL(url + "?start=" + offset));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to read " + url + ", retrying", e);
+            failure = e;
+            return false;
+        }
+        failure = null;
+        text.append(response.content);
+
+        String size = response.getHeader("X-Text-Size");
+        if (size != null) {
+            offset = Long.parseLong(size);
+        }
+        complete = !"true".equals(response.getHeader("X-More-Data"));
+        return complete;
+    }
+
+    /**
+     * Console output collected so far, together with the failure of the last request if it has failed.
+     */
+    String getText() {
+        return failure == null ? text.toString() : text + "\n" + failure;
+    }
+}
@@ -13,4 +13,9 @@ public class StringParameter extends Parameter {
     public void fillWith(Object v) {
         control("value").set(v.toString());
     }
+
+    @Override
+    public String getRequestValue(Object v) {
+        return v.toString();
+    }
 }
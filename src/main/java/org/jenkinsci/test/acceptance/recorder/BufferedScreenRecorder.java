@@ -0,0 +1,171 @@
+package org.jenkinsci.test.acceptance.recorder;
+
+import org.jenkinsci.test.acceptance.junit.DiagnosticsWriter;
+import org.monte.media.Format;
+import org.monte.media.FormatKeys;
+import org.monte.media.VideoFormatKeys;
+import org.monte.media.avi.AVIWriter;
+import org.monte.media.math.Rational;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.AWTException;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Screen recorder keeping the last seconds of the screen in memory, encoded to a movie only when asked to.
+ *
+ * Frames are captured by a background thread and kept JPEG compressed. The capture rate goes down when the machine is
+ * busy or capturing takes too long and up again when it does not, between {@value #MIN_RATE} and {@value #MAX_RATE}
+ * frames per second.
+ */
+class BufferedScreenRecorder implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BufferedScreenRecorder.class);
+
+    static final int MIN_RATE = 1;
+    static final int MAX_RATE = 8;
+
+    private static final float FRAME_QUALITY = 0.6f;
+
+    private final Robot robot;
+    private final Rectangle area;
+    private final FrameRingBuffer buffer;
+    private final Thread thread = new Thread(this, "Buffered screen recorder");
+
+    private volatile boolean running;
+
+    BufferedScreenRecorder(GraphicsConfiguration gc, FrameRingBuffer buffer) throws AWTException {
+        this.robot = new Robot(gc.getDevice());
+        this.area = gc.getBounds();
+        this.buffer = buffer;
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Stop capturing, the buffered frames are kept.
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join();
+    }
+
+    @Override
+    public void run() {
+        int rate = MAX_RATE;
+        while (running) {
+            long start = System.currentTimeMillis();
+            try {
+                BufferedImage image = robot.createScreenCapture(area);
+                buffer.add(new FrameRingBuffer.Frame(start, compress(image)));
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to capture the screen, recording stopped", e);
+                return;
+            }
+
+            long took = System.currentTimeMillis() - start;
+            rate = adapt(rate, took, load());
+            try {
+                Thread.sleep(Math.max(0, 1000 / rate - took));
+            } catch (InterruptedException e) {
+                return; // Stopped
+            }
+        }
+    }
+
+    /**
+     * The frames buffered so far, encoded to AVI once written.
+     *
+     * @return null if there are no frames.
+     */
+    @CheckForNull DiagnosticsWriter.Content recording() {
+        final List<FrameRingBuffer.Frame> frames = buffer.frames();
+        if (frames.isEmpty()) return null;
+
+        return file -> write(file, frames);
+    }
+
+    private void write(File file, List<FrameRingBuffer.Frame> frames) throws IOException {
+        AVIWriter out = new AVIWriter(file);
+        try {
+            int track = out.addTrack(new Format(
+                    FormatKeys.MediaTypeKey, FormatKeys.MediaType.VIDEO,
+                    FormatKeys.EncodingKey, VideoFormatKeys.ENCODING_AVI_MJPG,
+                    FormatKeys.FrameRateKey, Rational.valueOf(MAX_RATE),
+                    VideoFormatKeys.WidthKey, area.width,
+                    VideoFormatKeys.HeightKey, area.height,
+                    VideoFormatKeys.DepthKey, 24,
+                    VideoFormatKeys.QualityKey, FRAME_QUALITY
+            ));
+            for (int i = 0; i < frames.size(); i++) {
+                FrameRingBuffer.Frame frame = frames.get(i);
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(frame.data));
+                // Captured at lower rate, shown for as long as it was on the screen
+                long duration = i + 1 < frames.size()
+                        ? Math.max(1, Math.round((frames.get(i + 1).time - frame.time) * MAX_RATE / 1000.0))
+                        : 1;
+                out.write(track, image, duration);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Frame rate for the next capture.
+     *
+     * @param took Milliseconds the last capture took.
+     * @param load System load per processor, negative when not known.
+     */
+    static int adapt(int rate, long took, double load) {
+        long interval = 1000 / rate;
+        if (load > 1 || took * 2 > interval) {
+            return Math.max(MIN_RATE, rate / 2);
+        }
+        if (load < 0.5 && took * 4 < interval) {
+            return Math.min(MAX_RATE, rate + 1);
+        }
+        return rate;
+    }
+
+    private static double load() {
+        return ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage()
+                / Runtime.getRuntime().availableProcessors();
+    }
+
+    private static byte[] compress(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(FRAME_QUALITY);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,63 @@
+package org.jenkinsci.test.acceptance.recorder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Last frames captured from the screen, older ones are dropped once the buffer spans too long or gets too big.
+ */
+final class FrameRingBuffer {
+
+    static final class Frame {
+        /**
+         * Capture time in milliseconds.
+         */
+        final long time;
+
+        /**
+         * Compressed image.
+         */
+        final byte[] data;
+
+        Frame(long time, byte[] data) {
+            this.time = time;
+            this.data = data;
+        }
+    }
+
+    private final long maxAge;
+    private final long maxBytes;
+
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private long bytes;
+
+    /**
+     * @param maxAge Milliseconds between the first and the last frame kept.
+     * @param maxBytes Size of all frames kept, the last frame is kept even if bigger.
+     */
+    FrameRingBuffer(long maxAge, long maxBytes) {
+        this.maxAge = maxAge;
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized void add(Frame frame) {
+        frames.addLast(frame);
+        bytes += frame.data.length;
+        while (frames.size() > 1 && (bytes > maxBytes || frame.time - frames.getFirst().time > maxAge)) {
+            bytes -= frames.removeFirst().data.length;
+        }
+    }
+
+    /**
+     * Frames from the oldest one.
+     */
+    synchronized List<Frame> frames() {
+        return new ArrayList<>(frames);
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+}
@@ -1,5 +1,6 @@
 package org.jenkinsci.test.acceptance.recorder;
 
+import org.jenkinsci.test.acceptance.junit.DiagnosticsWriter;
 import org.jenkinsci.test.acceptance.junit.FailureDiagnostics;
 import org.jenkinsci.test.acceptance.junit.GlobalRule;
 import org.jenkinsci.test.acceptance.utils.SystemEnvironmentVariables;
@@ -26,6 +27,8 @@ import javax.inject.Inject;
 /**
  * JUnit Rule that before executing a test it starts a recording current screen
  * and after the test is executed, it stops recording.
+ *
+ * In {@link #BUFFERED} mode, only the last seconds of the screen are kept in memory and written when the test fails.
  */
 @GlobalRule
 public class TestRecorderRule extends TestWatcher {
@@ -40,6 +43,14 @@ public class TestRecorderRule extends TestWatcher {
 
     static final String FAILURES = "failuresOnly";
     static final String ALWAYS = "always";
+    static final String BUFFERED = "failuresBuffered";
+
+    /**
+     * Seconds of the screen kept in memory by {@link #BUFFERED} mode.
+     */
+    private static final long BUFFER_SECONDS = Long.parseLong(SystemEnvironmentVariables
+            .getPropertyVariableOrEnvironment("RECORDER_BUFFER_SECONDS", "30").trim());
+    private static final long BUFFER_BYTES = 128 * 1024 * 1024;
 
     private static final String DEFAULT_MODE = FAILURES;
 
@@ -49,6 +60,7 @@ public class TestRecorderRule extends TestWatcher {
     private boolean headless = false;
     private FailureDiagnostics diagnostics;
     private JUnitScreenRecorder screenRecorder;
+    private BufferedScreenRecorder bufferedRecorder;
 
     @Inject
     public TestRecorderRule(FailureDiagnostics diagnostics) {
@@ -57,11 +69,31 @@ public class TestRecorderRule extends TestWatcher {
 
     @Override
     protected void starting(Description description) {
-        if (isRecorderEnabled()) {
+        if (bufferFrames()) {
+            startBuffering();
+        } else if (isRecorderEnabled()) {
             startRecording(description);
         }
     }
 
+    private void startBuffering() {
+        try {
+            GraphicsConfiguration gc = GraphicsEnvironment
+                    .getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice()
+                    .getDefaultConfiguration();
+            this.bufferedRecorder = new BufferedScreenRecorder(gc, new FrameRingBuffer(
+                    TimeUnit.SECONDS.toMillis(BUFFER_SECONDS), BUFFER_BYTES
+            ));
+            this.bufferedRecorder.start();
+        } catch (HeadlessException e) {
+            logger.warn("Test recorder does not work with Headless mode");
+            this.headless = true;
+        } catch (AWTException e) {
+            logger.warn("Exception starting test recording {}", e);
+        }
+    }
+
     private void startRecording(Description des) {
         try {
             GraphicsConfiguration gc = GraphicsEnvironment
@@ -109,8 +141,33 @@ public class TestRecorderRule extends TestWatcher {
         }
     }
 
+    @Override
+    protected void failed(Throwable e, Description description) {
+        if (this.bufferedRecorder != null) {
+            try {
+                this.bufferedRecorder.stop();
+                // Encoded off the test thread when diagnostics are written asynchronously
+                DiagnosticsWriter.Content recording = this.bufferedRecorder.recording();
+                if (recording != null) {
+                    diagnostics.write("ui-recording.avi", recording);
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("Exception stoping test recording {}.", ex);
+            }
+        }
+    }
+
     @Override
     protected void finished(Description description) {
+        if (this.bufferedRecorder != null) {
+            try {
+                this.bufferedRecorder.stop();
+            } catch (InterruptedException e) {
+                logger.warn("Exception stoping test recording {}.", e);
+            }
+            this.bufferedRecorder = null;
+            return;
+        }
         stopRecordingWithFinalWaiting();
     }
 
@@ -122,6 +179,10 @@ public class TestRecorderRule extends TestWatcher {
         return ALWAYS.equals(RECORDER_OPTION);
     }
 
+    private boolean bufferFrames() {
+        return BUFFERED.equals(RECORDER_OPTION);
+    }
+
     private void stopRecording() {
         stopRecording(false);
     }
@@ -0,0 +1,66 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.test.acceptance.utils.ElasticTime;
+import org.jenkinsci.test.acceptance.utils.ElasticTimeCalibrator;
+import org.openqa.selenium.By;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+
+/**
+ * Keeps the page load timeout and the implicit wait of the session proportional to {@link ElasticTime}.
+ *
+ * <p>
+ * The coefficient follows the load when {@link ElasticTimeCalibrator} is enabled. The timeouts are set again before the
+ * session navigates or looks up elements, once the coefficient has changed by more than a tenth since they were set.
+ */
+public class ElasticTimeouts extends AbstractWebDriverEventListener {
+
+    private static final long PAGE_LOAD_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    private static final long IMPLICIT_WAIT = TimeUnit.SECONDS.toMillis(1);
+
+    private final ElasticTime time;
+
+    /**
+     * Coefficient the timeouts were set with, 0 if not set yet.
+     */
+    private double applied;
+    private boolean supported = true;
+
+    public ElasticTimeouts(ElasticTime time) {
+        this.time = time;
+    }
+
+    /**
+     * Set the timeouts unless they are close to the current ones.
+     */
+    public void apply(WebDriver driver) {
+        if (!supported) return;
+
+        double coefficient = time.getCoefficient();
+        if (applied != 0 && Math.abs(coefficient - applied) <= applied / 10) return;
+
+        try {
+            driver.manage().timeouts().pageLoadTimeout(Math.round(PAGE_LOAD_TIMEOUT * coefficient), TimeUnit.MILLISECONDS);
+            driver.manage().timeouts().implicitlyWait(Math.round(IMPLICIT_WAIT * coefficient), TimeUnit.MILLISECONDS);
+            applied = coefficient;
+        } catch (UnsupportedCommandException e) {
+            // sauce labs RemoteWebDriver doesn't support this
+            System.out.println(driver + " doesn't support page load timeout");
+            supported = false;
+        }
+    }
+
+    @Override
+    public void beforeNavigateTo(String url, WebDriver driver) {
+        apply(driver);
+    }
+
+    @Override
+    public void beforeFindBy(By by, WebElement element, WebDriver driver) {
+        apply(driver);
+    }
+}
@@ -0,0 +1,276 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jenkinsci.test.acceptance.guice.WorldCleaner;
+import org.jenkinsci.test.acceptance.junit.Timings;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+import org.openqa.selenium.support.events.AbstractWebDriverEventListener;
+
+/**
+ * Browser sessions kept open between tests.
+ *
+ * <p>
+ * Sessions are keyed by browser type and display and handed out to the next test asking for the same key. When a test
+ * is done, extra windows are closed and cookies and web storage of the page it ended on and of every site it navigated
+ * to, as recorded by {@link VisitedPages}, are deleted before the session is put back. A session is discarded after a number of tests or when the browser does not respond. Every test JVM has
+ * its own pool, so there are as many browsers as there are tests running concurrently.
+ *
+ * <p>
+ * Acquiring the session is reported as <tt>browser.pool.hit</tt> or <tt>browser.pool.miss</tt> {@link Timings} phase,
+ * where the miss includes the browser startup, and the reset as <tt>browser.pool.reset</tt>.
+ *
+ * <p>
+ * Enabled by setting <tt>BROWSER_POOL=true</tt>, <tt>BROWSER_POOL_MAX_USES</tt> sets the number of tests a session is
+ * used for (25 by default).
+ */
+@Singleton
+public class WebDriverPool {
+    private static final Logger LOGGER = Logger.getLogger(WebDriverPool.class.getName());
+
+    private final boolean enabled;
+    private final int maxUses;
+
+    /**
+     * Idle sessions by key.
+     */
+    private final Map<String, Deque<WebDriver>> idle = new HashMap<>();
+
+    /**
+     * Number of tests that have used the session, for all sessions created by the pool.
+     */
+    private final Map<WebDriver, Integer> uses = new IdentityHashMap<>();
+
+    @Inject
+    public WebDriverPool(WorldCleaner cleaner) {
+        this(
+                "true".equals(System.getenv("BROWSER_POOL")),
+                Integer.parseInt(System.getenv("BROWSER_POOL_MAX_USES") == null ? "25" : System.getenv("BROWSER_POOL_MAX_USES"))
+        );
+        if (enabled) {
+            cleaner.addTask(new Runnable() {
+                @Override
+                public void run() {
+                    close();
+                }
+            });
+        }
+    }
+
+    public WebDriverPool(boolean enabled, int maxUses) {
+        this.enabled = enabled;
+        this.maxUses = maxUses;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get an idle session or start a new one.
+     *
+     * @param key Identifies the sessions that are interchangeable.
+     * @param factory Starts the browser when there is no idle session.
+     */
+    public WebDriver acquire(String key, Callable<WebDriver> factory) throws IOException {
+        long start = System.nanoTime();
+        synchronized (this) {
+            Deque<WebDriver> sessions = idle.get(key);
+            WebDriver driver = sessions == null ? null : sessions.poll();
+            if (driver != null) {
+                Timings.get().record("browser.pool.hit", System.nanoTime() - start);
+                return driver;
+            }
+        }
+
+        WebDriver driver;
+        try (Timings.Timer t = Timings.get().start("browser.pool.miss")) {
+            driver = factory.call();
+        } catch (IOException|RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to start browser " + key, e);
+        }
+        synchronized (this) {
+            uses.put(driver, 0);
+        }
+        return driver;
+    }
+
+    /**
+     * Put the session back once the test is done with it, or quit it when it can not be reused.
+     *
+     * @param pages Pages to delete the cookies and web storage of, see {@link VisitedPages}.
+     */
+    public void release(String key, WebDriver driver, Collection<String> pages) {
+        int used;
+        synchronized (this) {
+            Integer u = uses.get(driver);
+            if (u == null) throw new IllegalArgumentException("Session not created by the pool " + driver);
+            used = u + 1;
+            uses.put(driver, used);
+        }
+
+        if (used < maxUses) {
+            boolean clean;
+            try (Timings.Timer t = Timings.get().start("browser.pool.reset")) {
+                clean = reset(driver, pages);
+            }
+            if (clean) {
+                synchronized (this) {
+                    Deque<WebDriver> sessions = idle.get(key);
+                    if (sessions == null) {
+                        idle.put(key, sessions = new ArrayDeque<>());
+                    }
+                    sessions.push(driver);
+                }
+                return;
+            }
+        }
+
+        quit(driver);
+    }
+
+    /**
+     * Quit all idle sessions.
+     */
+    public void close() {
+        List<WebDriver> drivers = new ArrayList<>();
+        synchronized (this) {
+            for (Deque<WebDriver> sessions : idle.values()) {
+                drivers.addAll(sessions);
+            }
+            idle.clear();
+        }
+        for (WebDriver driver : drivers) {
+            quit(driver);
+        }
+    }
+
+    /**
+     * Bring the session to the state of a newly started browser, as far as the tests can tell.
+     *
+     * @return false if the browser can not be reset.
+     */
+    /*package*/ static boolean reset(WebDriver driver, Collection<String> pages) {
+        try {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            if (handles.isEmpty()) return false;
+
+            String first = handles.get(0);
+            for (String handle : handles.subList(1, handles.size())) {
+                driver.switchTo().window(handle);
+                driver.close();
+            }
+            driver.switchTo().window(first);
+
+            // Storage is per origin and cookies are deleted for the current page only, so clean them on every site
+            clean(driver);
+            for (String page : pages) {
+                if (page.equals(driver.getCurrentUrl())) continue;
+                try {
+                    driver.get(page);
+                    clean(driver);
+                } catch (UnreachableBrowserException e) {
+                    throw e;
+                } catch (WebDriverException e) {
+                    // Such as the Jenkins the test has stopped already
+                    LOGGER.log(Level.FINE, "Unable to clean " + page, e);
+                }
+            }
+            driver.get("about:blank");
+            return true;
+        } catch (WebDriverException e) { // Including UnreachableBrowserException
+            LOGGER.log(Level.INFO, "Discarding browser session that can not be reset", e);
+            return false;
+        }
+    }
+
+    private static void clean(WebDriver driver) {
+        if (driver instanceof JavascriptExecutor) {
+            ((JavascriptExecutor) driver).executeScript(
+                    "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}"
+            );
+        }
+        driver.manage().deleteAllCookies();
+    }
+
+    /**
+     * Records the sites the session navigates to, so their cookies and web storage can be deleted once the test is done.
+     *
+     * One page per origin is kept, the deepest directory all the pages navigated to on that origin have in common, such
+     * as the context path of Jenkins, so the cookies set by them are seen from there.
+     */
+    public static final class VisitedPages extends AbstractWebDriverEventListener {
+        private final Map<String, String> pages = new LinkedHashMap<>();
+
+        @Override
+        public void beforeNavigateTo(String url, WebDriver driver) {
+            add(url);
+        }
+
+        /*package*/ synchronized void add(String page) {
+            URL url;
+            try {
+                url = new URL(page);
+            } catch (MalformedURLException e) {
+                return; // Such as about:blank
+            }
+            if (!url.getProtocol().startsWith("http")) return;
+
+            String origin = url.getProtocol() + "://" + url.getAuthority();
+            String path = url.getPath();
+            String dir = path.substring(0, path.lastIndexOf('/') + 1);
+            if (dir.isEmpty()) {
+                dir = "/";
+            }
+
+            String known = pages.get(origin);
+            if (known != null) {
+                String knownDir = known.substring(origin.length());
+                int common = 0;
+                for (int i = 0; i < Math.min(dir.length(), knownDir.length()) && dir.charAt(i) == knownDir.charAt(i); i++) {
+                    if (dir.charAt(i) == '/') {
+                        common = i + 1;
+                    }
+                }
+                dir = dir.substring(0, common);
+            }
+            pages.put(origin, origin + dir);
+        }
+
+        public synchronized List<String> getPages() {
+            return new ArrayList<>(pages.values());
+        }
+    }
+
+    private void quit(WebDriver driver) {
+        synchronized (this) {
+            uses.remove(driver);
+        }
+        try {
+            driver.quit();
+        } catch (WebDriverException e) {
+            LOGGER.log(Level.INFO, "Browser died already", e);
+        }
+    }
+}
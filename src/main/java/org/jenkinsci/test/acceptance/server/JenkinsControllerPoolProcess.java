@@ -12,6 +12,7 @@ import org.jenkinsci.test.acceptance.FallbackConfig;
 import org.jenkinsci.test.acceptance.controller.IJenkinsController;
 import org.jenkinsci.test.acceptance.controller.JenkinsController;
 import org.jenkinsci.test.acceptance.controller.JenkinsControllerFactory;
+import org.jenkinsci.test.acceptance.controller.JenkinsStateReset;
 import org.jenkinsci.test.acceptance.guice.TestCleaner;
 import org.jenkinsci.test.acceptance.guice.TestLifecycle;
 import org.jenkinsci.test.acceptance.guice.World;
@@ -30,7 +31,6 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.SynchronousQueue;
 
 /**
  * Pre-launch {@link JenkinsController} so that tests can use them without waiting.
@@ -53,11 +53,31 @@ public class JenkinsControllerPoolProcess {
     @Inject
     TestLifecycle lifecycle;
 
-    private BlockingQueue<QueueItem> queue;
+    private final BlockingQueue<QueueItem> queue = new LinkedBlockingDeque<>();
+
+    /**
+     * Slots that have no instance booted or booting. There are at most {@link #n} instances in the pool, not counting
+     * the ones handed out, so a replacement starts booting as soon as an instance is handed out.
+     */
+    private final BlockingQueue<Integer> freeSlots = new LinkedBlockingDeque<>();
+
+    /**
+     * Number of recycled instances put back to the pool while all the slots were taken by instances booting in their
+     * place. The next hand outs do not free their slots until these are used up, guarded by {@link #freeSlots}.
+     */
+    private int overflow;
+
+    private final PoolMetrics metrics = new PoolMetrics();
 
     @Option(name="-n",usage="Number of instances to pool. >=1.")
     public int n = Integer.getInteger("count",1);
 
+    @Option(name="-p",usage="Number of instances to boot concurrently. >=1.")
+    public int parallelism = Integer.getInteger("parallelism",1);
+
+    @Option(name="-r",usage="Reset instances after use and return them to the pool instead of booting new ones.")
+    public boolean recycle = Boolean.getBoolean("recycle");
+
     @Inject @Named("socket")
     public File socket;
 
@@ -78,38 +98,49 @@ public class JenkinsControllerPoolProcess {
     }
 
     public void run() throws Exception {
-        // there's always one process that's waiting to be in the queue,
-        // so the actual length of the queue has to be n-1.
-        if (n==1)
-            queue = new SynchronousQueue<>();
-        else
-            queue = new LinkedBlockingDeque<>(n-1);
+        for (int i = 1; i <= n; i++) {
+            freeSlots.add(i);
+        }
 
         World w = World.get();
         w.getInjector().injectMembers(this);
 
-        new Thread() {
-            /**
-             * Just keeps on creating new controllers and put it into the queue.
-             * Because queue is blocking, this will only prelaunch up to 3.
-             */
+        Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
-                try {
-                    FallbackConfig f = new FallbackConfig();
-                    while (true) {
-                        lifecycle.startTestScope();
-                        JenkinsController c = f.createController(injector,factories);
-                        c.start();
-                        queue.put(new QueueItem(c,lifecycle.export()));
+                System.out.println(metrics);
+            }
+        });
+
+        for (int i = 0; i < Math.min(parallelism, n); i++) {
+            new Thread("JUT boot thread " + i) {
+                /**
+                 * Just keeps on creating new controllers for free slots and put them into the queue.
+                 */
+                @Override
+                public void run() {
+                    try {
+                        FallbackConfig f = new FallbackConfig();
+                        while (true) {
+                            int slot = freeSlots.take();
+                            long start = System.currentTimeMillis();
+                            lifecycle.startTestScope();
+                            JenkinsController c = f.createController(injector,factories);
+                            c.start();
+                            JenkinsStateReset reset = recycle ? JenkinsStateReset.of(c.getUrl()) : null;
+                            long duration = System.currentTimeMillis() - start;
+                            metrics.booted(slot, duration);
+                            System.out.printf("Booted %s in slot #%d in %d ms%n", c.getUrl(), slot, duration);
+                            queue.put(new QueueItem(slot, c, reset, lifecycle.export()));
+                        }
+                    } catch (Throwable e) {
+                        // fail fatally
+                        e.printStackTrace();
+                        System.exit(1);
                     }
-                } catch (Throwable e) {
-                    // fail fatally
-                    e.printStackTrace();
-                    System.exit(1);
                 }
-            }
-        }.start();
+            }.start();
+        }
 
         processServerSocket();
 
@@ -131,21 +162,63 @@ public class JenkinsControllerPoolProcess {
             while (true) {
                 final UnixSocketChannel c = channel.accept();
                 System.out.println("Accepted");
-                final QueueItem qi = queue.take();
-                final JenkinsController j = qi.controller;
-                System.out.println("Handed out "+j.getUrl());
 
                 new Thread("Connection handling thread") {
                     @Override
                     public void run() {
+                        long start = System.currentTimeMillis();
+                        final QueueItem qi;
+                        try {
+                            qi = queue.take();
+                        } catch (InterruptedException e) {
+                            e.printStackTrace();
+                            return;
+                        }
+                        long wait = System.currentTimeMillis() - start;
+                        metrics.handedOut(qi.slot, wait);
+                        synchronized (freeSlots) {
+                            if (overflow > 0) {
+                                overflow--;
+                            } else {
+                                // Boot the replacement while the test runs
+                                freeSlots.add(qi.slot);
+                            }
+                        }
+                        System.out.printf("Handed out %s from slot #%d after %d ms%n", qi.controller.getUrl(), qi.slot, wait);
+
                         lifecycle.import_(qi.testScope);
+                        PooledSession session = new PooledSession(qi.controller);
+                        processConnection(c, qi.controller, session);
+
+                        if (session.release() && qi.reset != null && qi.reset.reset()) {
+                            Integer slot;
+                            synchronized (freeSlots) {
+                                slot = freeSlots.poll();
+                                if (slot == null && queue.size() < n) {
+                                    // Ready now, unlike the one booting in its place
+                                    overflow++;
+                                    slot = qi.slot;
+                                }
+                            }
+                            if (slot != null) {
+                                metrics.returned(slot, true);
+                                System.out.printf("Recycled %s in slot #%d%n", qi.controller.getUrl(), slot);
+                                queue.add(new QueueItem(slot, qi.controller, qi.reset, lifecycle.export()));
+                                return;
+                            }
+                        }
+
                         try {
-                            processConnection(c, j);
+                            qi.controller.stop();
+                            qi.controller.tearDown();
+                        } catch (IOException e) {
+                            e.printStackTrace();
                         } finally {
                             TestCleaner scope = injector.getInstance(TestCleaner.class);
                             if (scope!=null)
                                 scope.performCleanUp();
                             lifecycle.endTestScope();
+                            metrics.returned(qi.slot, false);
                         }
                     }
                 }.start();
@@ -156,7 +229,7 @@ public class JenkinsControllerPoolProcess {
     /**
      * Serve individual connection to the test harness.
      */
-    private void processConnection(UnixSocketChannel c, JenkinsController j) {
+    private void processConnection(UnixSocketChannel c, JenkinsController j, PooledSession session) {
         try {
             try {
                 try (
@@ -164,15 +237,13 @@ public class JenkinsControllerPoolProcess {
                     OutputStream out = ChannelStream.out(c)) {
 
                     Channel ch = new ChannelBuilder(j.getLogId(), executors).withMode(Mode.BINARY).build(in, out);
-                    ch.setProperty("controller", ch.export(IJenkinsController.class,j));
+                    ch.setProperty("controller", ch.export(IJenkinsController.class,session));
 
                     // wait for the connection to be shut down
                     ch.join();
                 }
             } finally {
                 System.out.println("done");
-                j.stop();
-                j.tearDown();
                 c.close();
             }
         } catch (IOException|InterruptedException e) {
@@ -186,11 +257,15 @@ public class JenkinsControllerPoolProcess {
     public static boolean MAIN = false;
 
     static class QueueItem {
+        final int slot;
         final JenkinsController controller;
+        final JenkinsStateReset reset;
         final Map testScope;
 
-        QueueItem(JenkinsController controller, Map testScope) {
+        QueueItem(int slot, JenkinsController controller, JenkinsStateReset reset, Map testScope) {
+            this.slot = slot;
             this.controller = controller;
+            this.reset = reset;
             this.testScope = testScope;
         }
     }
@@ -0,0 +1,70 @@
+package org.jenkinsci.test.acceptance.server;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Boot time and queue wait statistics of {@link JenkinsControllerPoolProcess}.
+ */
+class PoolMetrics {
+    private final Map<Integer, Slot> slots = new TreeMap<>();
+
+    private int handouts;
+    private long totalWait;
+    private long maxWait;
+
+    private static final class Slot {
+        int boots;
+        long totalBoot;
+        long lastBoot;
+        int uses;
+        int recycled;
+        int discarded;
+    }
+
+    private Slot slot(int id) {
+        Slot s = slots.get(id);
+        if (s == null) {
+            slots.put(id, s = new Slot());
+        }
+        return s;
+    }
+
+    synchronized void booted(int slot, long millis) {
+        Slot s = slot(slot);
+        s.boots++;
+        s.totalBoot += millis;
+        s.lastBoot = millis;
+    }
+
+    synchronized void handedOut(int slot, long waitMillis) {
+        slot(slot).uses++;
+        handouts++;
+        totalWait += waitMillis;
+        maxWait = Math.max(maxWait, waitMillis);
+    }
+
+    synchronized void returned(int slot, boolean recycled) {
+        Slot s = slot(slot);
+        if (recycled) {
+            s.recycled++;
+        } else {
+            s.discarded++;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("JUT pool statistics:\n");
+        sb.append(String.format("  handed out %d instances, queue wait avg %d ms, max %d ms%n",
+                handouts, handouts == 0 ? 0 : totalWait / handouts, maxWait
+        ));
+        for (Map.Entry<Integer, Slot> e : slots.entrySet()) {
+            Slot s = e.getValue();
+            sb.append(String.format("  slot #%d: %d boots (avg %d ms, last %d ms), %d uses, %d recycled, %d discarded%n",
+                    e.getKey(), s.boots, s.boots == 0 ? 0 : s.totalBoot / s.boots, s.lastBoot, s.uses, s.recycled, s.discarded
+            ));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package org.jenkinsci.test.acceptance.server;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jenkinsci.test.acceptance.controller.IJenkinsController;
+import org.jenkinsci.test.acceptance.controller.JenkinsController;
+import org.jenkinsci.test.acceptance.log.LogListenable;
+import org.jenkinsci.test.acceptance.log.LogListener;
+
+/**
+ * {@link IJenkinsController} exported to a single test JVM by {@link JenkinsControllerPoolProcess}.
+ *
+ * <p>
+ * Tests stop the controller when they are done with it. Stopping is deferred so the instance can be recycled when
+ * the session ends. Stop followed by a start is a restart, which is performed for real.
+ */
+class PooledSession implements IJenkinsController, LogListenable {
+    private final JenkinsController controller;
+    private final List<LogListener> listeners = new ArrayList<>();
+
+    private boolean stopRequested;
+    private boolean reusable = true;
+
+    PooledSession(JenkinsController controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    public synchronized URL getUrl() {
+        return controller.getUrl();
+    }
+
+    @Override
+    public synchronized void start() throws IOException {
+        if (stopRequested) {
+            stopRequested = false;
+            controller.stop();
+        }
+        controller.start();
+    }
+
+    @Override
+    public synchronized void stop() throws IOException {
+        stopRequested = true;
+    }
+
+    @Override
+    public synchronized void populateJenkinsHome(byte[] template, boolean clean) throws IOException {
+        if (clean) {
+            reusable = false;
+        }
+        controller.populateJenkinsHome(template, clean);
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+    }
+
+    @Override
+    public synchronized void addLogListener(LogListener l) {
+        if (controller instanceof LogListenable) {
+            ((LogListenable) controller).addLogListener(l);
+            listeners.add(l);
+        }
+    }
+
+    @Override
+    public synchronized void removeLogListener(LogListener l) {
+        if (controller instanceof LogListenable) {
+            ((LogListenable) controller).removeLogListener(l);
+            listeners.remove(l);
+        }
+    }
+
+    /**
+     * Detach the session from the controller.
+     *
+     * @return false if the session left the controller in a state that does not permit reuse.
+     */
+    synchronized boolean release() {
+        for (LogListener l : listeners) {
+            ((LogListenable) controller).removeLogListener(l);
+        }
+        listeners.clear();
+        return reusable && controller.isRunning();
+    }
+}
@@ -9,7 +9,12 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -32,22 +37,89 @@ public class CachedUpdateCenterMetadataLoader implements UpdateCenterMetadataPro
 
     @Override
     public UpdateCenterMetadata get(Jenkins jenkins) throws IOException {
+        return get(jenkins.getVersion().toString());
+    }
+
+    /**
+     * Decorated metadata for given core version.
+     */
+    public synchronized UpdateCenterMetadata get(String version) throws IOException {
         if (metadata==null) {
-            String version = jenkins.getVersion().toString();
-            File cache = new File(cacheBase + "-" + version + ".jsonp");
-            if (!cache.exists() || System.currentTimeMillis()-cache.lastModified() > TimeUnit.DAYS.toMillis(1)) {
-                // load cache
-                URL versionedUrl = new URL(url + "?version=" + version);
-                System.err.println("Downloading " + versionedUrl + " to " + cache);
-                FileUtils.copyURLToFile(versionedUrl, cache);
-            } else {
-                System.err.println("Using cached " + cache);
-            }
-            metadata = UpdateCenterMetadata.parse(cache);
+            metadata = UpdateCenterMetadata.parse(getCache(version));
             for (UpdateCenterMetadataDecorator decorator : decorators) {
                 decorator.decorate(metadata);
             }
         }
         return metadata;
     }
+
+    /**
+     * Raw update center file for given core version, downloaded unless cached recently.
+     */
+    /*package*/ synchronized File getCache(String version) throws IOException {
+        File cache = new File(cacheBase + "-" + version + ".jsonp");
+        if (!cache.exists() || System.currentTimeMillis()-cache.lastModified() > TimeUnit.DAYS.toMillis(1)) {
+            // load cache
+            URL versionedUrl = new URL(url + "?version=" + version);
+            System.err.println("Downloading " + versionedUrl + " to " + cache);
+            download(versionedUrl, cache);
+        } else {
+            System.err.println("Using cached " + cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Download the file unless the cached copy is still current.
+     *
+     * The cache is revalidated using conditional GET so the content is transferred only when it has changed.
+     */
+    /*package*/ static void download(URL url, File cache) throws IOException {
+        URLConnection con = url.openConnection();
+        File etag = new File(cache.getPath() + ".etag");
+        if (cache.exists()) {
+            con.setIfModifiedSince(cache.lastModified());
+            if (etag.exists()) {
+                con.setRequestProperty("If-None-Match", FileUtils.readFileToString(etag));
+            }
+        }
+
+        if (con instanceof HttpURLConnection && ((HttpURLConnection) con).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            System.err.println("Cached " + cache + " is up to date");
+            ((HttpURLConnection) con).disconnect();
+            // Restart the expiration period, the index remains valid as the content did not change
+            touch(cache);
+            return;
+        }
+
+        // Several JVMs can download the same file concurrently
+        File dir = cache.getAbsoluteFile().getParentFile();
+        Files.createDirectories(dir.toPath());
+        File tmp = File.createTempFile(cache.getName(), ".tmp", dir);
+        try {
+            try (InputStream in = con.getInputStream()) {
+                FileUtils.copyInputStreamToFile(in, tmp);
+            }
+            Files.move(tmp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+
+        String tag = con.getHeaderField("ETag");
+        if (tag != null) {
+            FileUtils.writeStringToFile(etag, tag);
+        } else {
+            FileUtils.deleteQuietly(etag);
+        }
+    }
+
+    private static void touch(File cache) throws IOException {
+        UpdateCenterMetadata indexed = UpdateCenterIndex.read(cache);
+        if (!cache.setLastModified(System.currentTimeMillis())) {
+            throw new IOException("Unable to touch " + cache);
+        }
+        if (indexed != null) {
+            UpdateCenterIndex.write(cache, indexed);
+        }
+    }
 }
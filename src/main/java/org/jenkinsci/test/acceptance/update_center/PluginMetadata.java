@@ -109,6 +109,14 @@ public class PluginMetadata {
         return name;
     }
 
+    /*package*/ String getGav() {
+        return gav;
+    }
+
+    /*package*/ String getRequiredCore() {
+        return requiredCore;
+    }
+
     public List<Dependency> getDependencies() {
         return Collections.unmodifiableList(dependencies);
     }
@@ -0,0 +1,149 @@
+package org.jenkinsci.test.acceptance.update_center;
+
+import javax.annotation.CheckForNull;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compact binary form of {@link UpdateCenterMetadata} stored beside the update center file it was created from.
+ *
+ * Reading the index is considerably cheaper than parsing the JSON. It holds the data as parsed, before any
+ * {@link UpdateCenterMetadataDecorator} is applied, and it is ignored once the update center file changes.
+ */
+/*package*/ final class UpdateCenterIndex {
+    private static final Logger LOGGER = Logger.getLogger(UpdateCenterIndex.class.getName());
+
+    private static final int MAGIC = 0x55434931; // UCI1
+
+    private UpdateCenterIndex() {}
+
+    /*package*/ static File of(File data) {
+        return new File(data.getPath() + ".idx");
+    }
+
+    /**
+     * Read the metadata from index of the file.
+     *
+     * @return null if there is no up-to-date index.
+     */
+    /*package*/ static @CheckForNull UpdateCenterMetadata read(File data) {
+        File index = of(data);
+        if (!index.isFile()) return null;
+
+        try (RandomAccessFile raf = new RandomAccessFile(index, "r"); FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            DataInput in = new DataInputStream(new ByteBufferInputStream(buffer));
+
+            if (in.readInt() != MAGIC || in.readLong() != data.length() || in.readLong() != data.lastModified()) {
+                return null;
+            }
+
+            UpdateCenterMetadata ucm = new UpdateCenterMetadata();
+            ucm.id = readString(in);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = readString(in);
+                String gav = readString(in);
+                String version = readString(in);
+                String requiredCore = readString(in);
+                int depCount = in.readInt();
+                List<Dependency> dependencies = new ArrayList<>(depCount);
+                for (int j = 0; j < depCount; j++) {
+                    dependencies.add(new Dependency(readString(in), readString(in), in.readBoolean()));
+                }
+                ucm.plugins.put(name, new PluginMetadata(name, gav, version, requiredCore, dependencies));
+            }
+            return ucm;
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to read update center index " + index, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Write the index for metadata parsed from the file.
+     *
+     * Failure to do so is not fatal, the file will be parsed again next time.
+     */
+    /*package*/ static void write(File data, UpdateCenterMetadata ucm) {
+        File index = of(data);
+        try {
+            File tmp = File.createTempFile(index.getName(), ".tmp", index.getAbsoluteFile().getParentFile());
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeLong(data.length());
+                    out.writeLong(data.lastModified());
+                    writeString(out, ucm.id);
+                    out.writeInt(ucm.plugins.size());
+                    for (PluginMetadata pm : ucm.plugins.values()) {
+                        writeString(out, pm.getName());
+                        writeString(out, pm.getGav());
+                        writeString(out, pm.getVersion());
+                        writeString(out, pm.getRequiredCore());
+                        out.writeInt(pm.getDependencies().size());
+                        for (Dependency d : pm.getDependencies()) {
+                            writeString(out, d.name);
+                            writeString(out, d.version);
+                            out.writeBoolean(d.optional);
+                        }
+                    }
+                }
+                Files.move(tmp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp.toPath());
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to write update center index " + index, ex);
+        }
+    }
+
+    private static void writeString(DataOutput out, @CheckForNull String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static @CheckForNull String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) return -1;
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+    }
+}
@@ -7,13 +7,20 @@ import hudson.util.VersionNumber;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.jenkinsci.test.acceptance.po.Jenkins;
 import org.junit.internal.AssumptionViolatedException;
@@ -31,21 +38,37 @@ public class UpdateCenterMetadata {
 
     public String id;
 
+    /**
+     * Installation order of {@link #plugins} and the metadata it was computed for.
+     */
+    private Map<String, Integer> order;
+    private PluginMetadata[] orderOf;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
     /**
      * Create metadata parsing Jenkins update center file.
      *
+     * The parsed data are stored in an index beside the file so next time it can be read without parsing.
+     *
      * @param data
      *      .json or .json.html file served from update center.
      */
     public static UpdateCenterMetadata parse(File data) throws IOException {
-        BufferedReader r = new BufferedReader(new FileReader(data));
-        r.readLine();   // the first line is preamble
-        String json = r.readLine(); // the 2nd line is the actual JSON
-        r.readLine();   // the third line is postamble
-
-        ObjectMapper om = new ObjectMapper();
-        om.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
-        UpdateCenterMetadata v = om.readValue(json, UpdateCenterMetadata.class);
+        UpdateCenterMetadata v = UpdateCenterIndex.read(data);
+        if (v == null) {
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(new FileInputStream(data), StandardCharsets.UTF_8))) {
+                r.mark(1);
+                if (r.read() != '{') {
+                    r.readLine(); // the first line is preamble
+                } else {
+                    r.reset();
+                }
+                // Bind straight from the stream, the postamble after the JSON object is not read
+                v = MAPPER.readValue(r, UpdateCenterMetadata.class);
+            }
+            UpdateCenterIndex.write(data, v);
+        }
         v.init();
         return v;
     }
@@ -74,7 +97,9 @@ public class UpdateCenterMetadata {
      * @throws UnableToResolveDependencies When there requested plugin version can not be installed.
      */
     public List<PluginMetadata> transitiveDependenciesOf(Jenkins jenkins, Collection<PluginSpec> plugins) throws UnableToResolveDependencies {
-        List<PluginMetadata> set = new ArrayList<>();
+        VersionNumber core = jenkins.getVersion();
+        Map<String, VersionNumber> installed = null; // Fetched lazily as there is no need to when there are no dependencies
+        Map<String, PluginMetadata> result = new LinkedHashMap<>();
         for (PluginSpec n : plugins) {
             PluginMetadata p = this.plugins.get(n.getName());
             if (p==null) {
@@ -82,57 +107,107 @@ public class UpdateCenterMetadata {
                 // Skipping the test since it can happen for both upstream and downstream update centers
                 throw new AssumptionViolatedException("No such plugin " + n.getName());
             }
-            if (p.requiredCore().isNewerThan(jenkins.getVersion())) {
+            if (p.requiredCore().isNewerThan(core)) {
                 throw new UnableToResolveDependencies(String.format(
                         "Unable to install %s plugin because of core dependency. Required: %s Used: %s",
                         p, p.requiredCore(), jenkins
                 ));
             }
 
-            transitiveDependenciesOf(jenkins, p, n.getVersion(), set);
+            if (installed == null && !p.getDependencies().isEmpty()) {
+                installed = jenkins.getInstalledPluginVersions();
+            }
+            transitiveDependenciesOf(core, installed, p, n.getVersion(), result);
         }
 
+        List<PluginMetadata> set = new ArrayList<>(result.values());
+        final Map<String, Integer> order = getInstallationOrder();
+        Collections.sort(set, new Comparator<PluginMetadata>() {
+            @Override public int compare(PluginMetadata o1, PluginMetadata o2) {
+                return Integer.compare(order.get(o1.getName()), order.get(o2.getName()));
+            }
+        });
         return set;
     }
 
-    private void transitiveDependenciesOf(Jenkins jenkins, PluginMetadata p, String v, List<PluginMetadata> result) {
+    private void transitiveDependenciesOf(
+            VersionNumber core, Map<String, VersionNumber> installed, PluginMetadata p, String v, Map<String, PluginMetadata> result
+    ) {
+        if (result.containsKey(p.getName())) return;
+
+        // If latest version is too new for current Jenkins, use the declared one
+        result.put(p.getName(), p.requiredCore().isNewerThan(core) ? p.withVersion(v) : p);
+
         for (Dependency d : p.getDependencies()) {
-            if (d.optional || !shouldBeIncluded(jenkins, d)) continue;
+            if (d.optional || !shouldBeIncluded(installed, d)) continue;
             PluginMetadata depMetaData = plugins.get(d.name);
             if (depMetaData == null) {
                 throw new UnableToResolveDependencies(
                     String.format("Unable to install dependency '%s' for '%s': plugin not found", d, p)
                 );
             }
-            transitiveDependenciesOf(jenkins, depMetaData, d.version, result);
-        }
-
-        if (!result.contains(p)) {
-            if (p.requiredCore().isNewerThan(jenkins.getVersion())) {
-                // If latest version is too new for current Jenkins, use the declared one
-                result.add(p.withVersion(v));
-            } else {
-                result.add(p);
-            }
+            transitiveDependenciesOf(core, installed, depMetaData, d.version, result);
         }
     }
 
     /**
      * Assess whether the dependency actually needs to be installed or upgraded.
      * 
-     * @param jenkins top-level jenkins object
+     * @param installed versions of installed plugins
      * @param d the dependency
      * @return true if the dependency should be installed/upgraded. Otherwise, false.
      */
-    private boolean shouldBeIncluded(Jenkins jenkins, Dependency d) {
-        try {
-            VersionNumber installedVersion = jenkins.getPlugin(d.name).getVersion();
-            VersionNumber requiredVersion = new VersionNumber(d.version);
-            return installedVersion.isOlderThan(requiredVersion);
-        } catch (IllegalArgumentException ex) {
+    private boolean shouldBeIncluded(Map<String, VersionNumber> installed, Dependency d) {
+        VersionNumber installedVersion = installed.get(d.name);
+        if (installedVersion == null) {
             // Plugin not installed
             return true;
         }
+        return installedVersion.isOlderThan(new VersionNumber(d.version));
+    }
+
+    /**
+     * Position of every plugin in the order of installation, dependencies first.
+     *
+     * Computed once for all the plugins and reused until {@link #plugins} are modified.
+     */
+    private synchronized Map<String, Integer> getInstallationOrder() {
+        if (order != null && orderOf.length == plugins.size()) {
+            int i = 0;
+            boolean valid = true;
+            for (PluginMetadata pm : plugins.values()) {
+                if (orderOf[i++] != pm) {
+                    valid = false;
+                    break;
+                }
+            }
+            if (valid) return order;
+        }
+
+        Map<String, Integer> order = new HashMap<>(plugins.size() * 2);
+        Set<String> visiting = new HashSet<>();
+        List<String> names = new ArrayList<>(plugins.keySet());
+        Collections.sort(names);
+        for (String name : names) {
+            order(name, visiting, order);
+        }
+
+        this.order = order;
+        this.orderOf = plugins.values().toArray(new PluginMetadata[plugins.size()]);
+        return order;
+    }
+
+    private void order(String name, Set<String> visiting, Map<String, Integer> order) {
+        PluginMetadata p = plugins.get(name);
+        // Skip plugins that are not available, already ordered and dependency cycles
+        if (p == null || order.containsKey(name) || !visiting.add(name)) return;
+
+        for (Dependency d : p.getDependencies()) {
+            if (!d.optional) {
+                order(d.name, visiting, order);
+            }
+        }
+        order.put(name, order.size());
     }
 
     public static class UnableToResolveDependencies extends RuntimeException {
@@ -0,0 +1,485 @@
+package org.jenkinsci.test.acceptance.update_center;
+
+import javax.annotation.CheckForNull;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.inject.Injector;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Update center served by the test harness so Jenkins under test installs plugins without reaching the internet.
+ *
+ * <p>
+ * The metadata served are the cached update center data for the core version with plugin URLs pointing to this server
+ * and plugin versions as decided by {@link UpdateCenterMetadataDecorator}s. Plugin files are resolved the same way as
+ * when uploaded, so the local Maven repository and local overrides are honoured. The data are signed by a certificate
+ * generated for this JVM.
+ *
+ * <p>
+ * {@link #seed(File, File)} puts the site configuration, the data and the certificate into JENKINS_HOME before Jenkins
+ * starts, so there is no need to check for updates before installing plugins.
+ *
+ * Enabled by <tt>UPDATE_CENTER_MIRROR=true</tt>.
+ */
+@Singleton
+public class UpdateCenterMirror {
+    private static final Logger LOGGER = Logger.getLogger(UpdateCenterMirror.class.getName());
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final boolean enabled;
+
+    @Inject
+    private CachedUpdateCenterMetadataLoader loader;
+
+    @Inject
+    private Injector injector;
+
+    private HttpServer server;
+
+    private Signer signer;
+
+    /**
+     * Signed update center JSON keyed by core version.
+     */
+    private final Map<String, String> data = new HashMap<>();
+
+    /**
+     * Served plugins keyed by name, as decorated.
+     */
+    private final Map<String, PluginMetadata> plugins = new HashMap<>();
+
+    public UpdateCenterMirror() {
+        this("true".equals(System.getenv("UPDATE_CENTER_MIRROR")));
+    }
+
+    /*package*/ UpdateCenterMirror(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Configure the JENKINS_HOME to use this update center.
+     *
+     * Needs to be called every time Jenkins is started as the port of the mirror differs between JVMs.
+     */
+    public void seed(File home, File war) throws IOException {
+        String version = coreVersion(war);
+        if (version == null) {
+            LOGGER.warning("Unable to determine Jenkins version of " + war + ", update center is not mirrored");
+            return;
+        }
+
+        String json = getData(version);
+        FileUtils.writeStringToFile(new File(home, "hudson.model.UpdateCenter.xml"),
+                "<?xml version='1.0' encoding='UTF-8'?>\n" +
+                "<sites>\n" +
+                "  <site>\n" +
+                "    <id>default</id>\n" +
+                "    <url>" + new URL(getUrl(), "update-center.json") + "</url>\n" +
+                "  </site>\n" +
+                "</sites>\n",
+                StandardCharsets.UTF_8
+        );
+        // Fresh timestamp so Jenkins considers the data current
+        FileUtils.writeStringToFile(new File(home, "updates/default.json"), json, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(home, "update-center-rootCAs/acceptance-test-harness.crt"),
+                getSigner().getCertificatePem(), StandardCharsets.US_ASCII
+        );
+    }
+
+    /**
+     * Identifies what {@link #seed(File, File)} configures Jenkins with apart from the data, that is the URL of the mirror
+     * and the certificate. Both differ between JVMs.
+     */
+    public String getSeedId() throws IOException {
+        try {
+            byte[] certificate = getSigner().getCertificate().getEncoded();
+            return getUrl() + " " + Signer.hex(MessageDigest.getInstance("SHA-256").digest(certificate));
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * URL of the running mirror.
+     */
+    public synchronized URL getUrl() throws IOException {
+        if (server == null) {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Update center mirror");
+                    t.setDaemon(true);
+                    return t;
+                }
+            }));
+            server.createContext("/update-center.json", new HttpHandler() {
+                @Override public void handle(HttpExchange exchange) throws IOException {
+                    serveData(exchange);
+                }
+            });
+            server.createContext("/plugins/", new HttpHandler() {
+                @Override public void handle(HttpExchange exchange) throws IOException {
+                    servePlugin(exchange);
+                }
+            });
+            // Connection check
+            server.createContext("/", new HttpHandler() {
+                @Override public void handle(HttpExchange exchange) throws IOException {
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                }
+            });
+            server.start();
+            LOGGER.info("Update center mirror is running at " + server.getAddress());
+        }
+        InetSocketAddress address = server.getAddress();
+        return new URL("http", address.getHostString(), address.getPort(), "/");
+    }
+
+    private synchronized String getData(String version) throws IOException {
+        String json = data.get(version);
+        if (json == null) {
+            UpdateCenterMetadata ucm = loader.get(version);
+            ObjectNode mirrored = mirror(loader.getCache(version), ucm, getUrl());
+            json = getSigner().sign(mirrored).toString();
+            data.put(version, json);
+        }
+        return json;
+    }
+
+    /**
+     * Turn the raw update center data into ones served by the mirror.
+     */
+    /*package*/ synchronized ObjectNode mirror(File raw, UpdateCenterMetadata ucm, URL base) throws IOException {
+        String jsonp = FileUtils.readFileToString(raw, StandardCharsets.UTF_8);
+        ObjectNode json = (ObjectNode) MAPPER.readTree(jsonp.substring(jsonp.indexOf('{'), jsonp.lastIndexOf('}') + 1));
+        json.remove("signature");
+        json.put("connectionCheckUrl", base.toString());
+
+        if (!json.path("plugins").isObject()) {
+            json.putObject("plugins");
+        }
+        ObjectNode entries = (ObjectNode) json.get("plugins");
+        for (PluginMetadata pm : ucm.plugins.values()) {
+            plugins.put(pm.getName(), pm);
+
+            String url = new URL(base, "plugins/" + pm.getName() + "/" + pm.getVersion() + "/" + pm.getName() + ".hpi").toString();
+            JsonNode entry = entries.get(pm.getName());
+            if (entry instanceof ObjectNode && pm.getVersion().equals(entry.path("version").asText()) && !(pm instanceof PluginMetadata.LocalOverride)) {
+                ((ObjectNode) entry).put("url", url);
+                continue;
+            }
+
+            // Not the one in update center, describe what is going to be served
+            ObjectNode e = entry instanceof ObjectNode ? (ObjectNode) entry : entries.putObject(pm.getName());
+            e.put("name", pm.getName());
+            e.put("version", pm.getVersion());
+            e.put("url", url);
+            if (!e.has("title")) {
+                e.put("title", pm.getName());
+            }
+            if (pm.getGav() != null) {
+                e.put("gav", pm.getGav());
+            }
+            if (pm.getRequiredCore() != null) {
+                e.put("requiredCore", pm.getRequiredCore());
+            }
+            ArrayNode dependencies = e.putArray("dependencies");
+            for (Dependency d : pm.getDependencies()) {
+                dependencies.addObject().put("name", d.name).put("version", d.version).put("optional", d.optional);
+            }
+
+            // Jenkins refuses to install plugins it can not verify
+            File file = resolve(pm);
+            e.remove("sha512");
+            e.put("sha1", Base64.getEncoder().encodeToString(digest("SHA-1", file)));
+            e.put("sha256", Base64.getEncoder().encodeToString(digest("SHA-256", file)));
+        }
+        return json;
+    }
+
+    private File resolve(PluginMetadata pm) {
+        return pm.resolve(injector, pm.getVersion());
+    }
+
+    private void serveData(HttpExchange exchange) throws IOException {
+        try {
+            String json;
+            synchronized (this) {
+                // Jenkins asks for the data of its version, only the seeded ones are available
+                String query = exchange.getRequestURI().getQuery();
+                String version = null;
+                if (query != null) {
+                    for (String param : query.split("&")) {
+                        if (param.startsWith("version=")) {
+                            version = param.substring("version=".length());
+                        }
+                    }
+                }
+                json = data.get(version);
+                if (json == null && data.size() == 1) {
+                    json = data.values().iterator().next();
+                }
+            }
+            if (json == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] body = ("updateCenter.post(\n" + json + "\n);").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/javascript; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void servePlugin(HttpExchange exchange) throws IOException {
+        try {
+            // /plugins/$NAME/$VERSION/$NAME.hpi
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            PluginMetadata pm;
+            synchronized (this) {
+                pm = path.length == 5 ? plugins.get(path[2]) : null;
+            }
+            if (pm == null || !pm.getVersion().equals(path[3])) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            File file;
+            try {
+                file = resolve(pm);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Unable to resolve " + pm, ex);
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(200, file.length());
+            try (InputStream in = new FileInputStream(file); OutputStream out = exchange.getResponseBody()) {
+                IOUtils.copy(in, out);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /*package*/ synchronized Signer getSigner() throws IOException {
+        if (signer == null) {
+            try {
+                signer = new Signer();
+            } catch (GeneralSecurityException|OperatorCreationException e) {
+                throw new IOException("Unable to generate update center certificate", e);
+            }
+        }
+        return signer;
+    }
+
+    private static @CheckForNull String coreVersion(File war) throws IOException {
+        try (JarFile j = new JarFile(war)) {
+            return j.getManifest() == null ? null : j.getManifest().getMainAttributes().getValue("Jenkins-Version");
+        }
+    }
+
+    private static byte[] digest(String algorithm, File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance(algorithm);
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = in.read(buf)) >= 0) {
+                digest.update(buf, 0, len);
+            }
+            return digest.digest();
+        } catch (GeneralSecurityException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Self-signed certificate to sign the data with.
+     */
+    /*package*/ static final class Signer {
+        private final KeyPair keys;
+        private final X509Certificate certificate;
+
+        private Signer() throws GeneralSecurityException, OperatorCreationException {
+            KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+            gen.initialize(2048, new SecureRandom());
+            keys = gen.generateKeyPair();
+
+            X500Name name = new X500Name("CN=Acceptance test harness update center");
+            long now = System.currentTimeMillis();
+            JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(
+                    name, BigInteger.valueOf(now), new Date(now - TimeUnit.DAYS.toMillis(1)), new Date(now + TimeUnit.DAYS.toMillis(30)),
+                    name, keys.getPublic()
+            );
+            certificate = new JcaX509CertificateConverter().getCertificate(
+                    builder.build(new JcaContentSignerBuilder("SHA256withRSA").build(keys.getPrivate()))
+            );
+        }
+
+        /*package*/ X509Certificate getCertificate() {
+            return certificate;
+        }
+
+        private String getCertificatePem() throws IOException {
+            try {
+                return "-----BEGIN CERTIFICATE-----\n"
+                        + Base64.getMimeEncoder().encodeToString(certificate.getEncoded())
+                        + "\n-----END CERTIFICATE-----\n";
+            } catch (GeneralSecurityException e) {
+                throw new IOException(e);
+            }
+        }
+
+        /**
+         * Add the signature Jenkins verifies, both SHA-1 and SHA-512 based.
+         */
+        /*package*/ ObjectNode sign(ObjectNode json) throws IOException {
+            json.remove("signature");
+            byte[] canonical = canonical(json).getBytes(StandardCharsets.UTF_8);
+            try {
+                ObjectNode signature = MAPPER.createObjectNode();
+                signature.putArray("certificates").add(Base64.getEncoder().encodeToString(certificate.getEncoded()));
+                signature.put("correct_digest", Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-1").digest(canonical)));
+                signature.put("correct_signature", Base64.getEncoder().encodeToString(sign("SHA1withRSA", canonical)));
+                signature.put("correct_digest512", hex(MessageDigest.getInstance("SHA-512").digest(canonical)));
+                signature.put("correct_signature512", hex(sign("SHA512withRSA", canonical)));
+                json.set("signature", signature);
+                return json;
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Unable to sign update center data", e);
+            }
+        }
+
+        private static String hex(byte[] bytes) {
+            StringBuilder sb = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        }
+
+        private byte[] sign(String algorithm, byte[] data) throws GeneralSecurityException {
+            Signature s = Signature.getInstance(algorithm);
+            s.initSign(keys.getPrivate());
+            s.update(data);
+            return s.sign();
+        }
+    }
+
+    /**
+     * Canonical form of the JSON as computed by Jenkins when verifying the signature: keys sorted, no whitespace.
+     */
+    /*package*/ static String canonical(JsonNode json) {
+        StringBuilder sb = new StringBuilder();
+        canonical(json, sb);
+        return sb.toString();
+    }
+
+    private static void canonical(JsonNode json, StringBuilder sb) {
+        if (json.isObject()) {
+            List<String> keys = new ArrayList<>();
+            for (Iterator<String> it = json.fieldNames(); it.hasNext();) {
+                keys.add(it.next());
+            }
+            Collections.sort(keys);
+            sb.append('{');
+            for (int i = 0; i < keys.size(); i++) {
+                if (i > 0) sb.append(',');
+                quote(keys.get(i), sb);
+                sb.append(':');
+                canonical(json.get(keys.get(i)), sb);
+            }
+            sb.append('}');
+        } else if (json.isArray()) {
+            sb.append('[');
+            for (int i = 0; i < json.size(); i++) {
+                if (i > 0) sb.append(',');
+                canonical(json.get(i), sb);
+            }
+            sb.append(']');
+        } else if (json.isTextual()) {
+            quote(json.asText(), sb);
+        } else if (json.isFloatingPointNumber()) {
+            // Trailing zeros are not written
+            String number = Double.toString(json.asDouble());
+            if (number.indexOf('.') > 0 && number.indexOf('E') < 0) {
+                number = number.replaceAll("\\.?0+$", "");
+            }
+            sb.append(number);
+        } else {
+            sb.append(json.asText());
+        }
+    }
+
+    private static void quote(String s, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -28,7 +28,8 @@ import java.util.concurrent.TimeUnit;
 /**
  * Represent proportional to execution speed.
  *
- * This implementation takes number of concurrent threads into account.
+ * This implementation takes number of concurrent threads into account, or the measured speed of the environment when
+ * {@link ElasticTimeCalibrator} is enabled.
  *
  * @author ogondza
  */
@@ -51,7 +52,16 @@ public class ElasticTime {
     }
 
     public long milliseconds(long ms) {
-        double coeficient = concurrency * factor;
-        return Math.round(ms * coeficient);
+        return Math.round(ms * getCoefficient());
+    }
+
+    /**
+     * Times the time is slowed down, measured by {@link ElasticTimeCalibrator} when enabled.
+     */
+    public double getCoefficient() {
+        if (ElasticTimeCalibrator.isEnabled()) {
+            return ElasticTimeCalibrator.get().getCoefficient() * factor;
+        }
+        return concurrency * factor;
     }
 }
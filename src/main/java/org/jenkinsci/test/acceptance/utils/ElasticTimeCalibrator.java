@@ -0,0 +1,138 @@
+package org.jenkinsci.test.acceptance.utils;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures how slow the environment is for {@link ElasticTime}.
+ *
+ * <p>
+ * The coefficient combines the speed of the CPU measured by a benchmark when first used, the system load per processor
+ * sampled every few seconds and the latency of the Jenkins API reported by the harness. It is never below 1, so
+ * timeouts are never shorter than the ones written in the tests, nor above {@value #MAX_COEFFICIENT}.
+ *
+ * <p>
+ * Enabled by setting <tt>ElasticTime.calibrate=true</tt> system property, in which case the coefficient replaces the
+ * one derived from <tt>forkCount</tt>.
+ */
+public final class ElasticTimeCalibrator {
+    private static final Logger LOGGER = Logger.getLogger(ElasticTimeCalibrator.class.getName());
+
+    /*package*/ static final double MAX_COEFFICIENT = 10;
+
+    /**
+     * Duration of the {@link #benchmark()} in reference environment.
+     */
+    private static final long REFERENCE_BENCHMARK = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /**
+     * Jenkins API round-trip in reference environment.
+     */
+    private static final long REFERENCE_LATENCY = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final long LOAD_SAMPLE_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * Weight of the latest latency sample.
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private static final boolean ENABLED = Boolean.getBoolean("ElasticTime.calibrate");
+
+    private static ElasticTimeCalibrator INSTANCE;
+
+    /**
+     * Relative duration of the benchmark compared to reference environment.
+     */
+    private final double speed;
+    private final int processors;
+    private final boolean sampleSystemLoad;
+
+    private double load;
+    private long loadSampled;
+
+    /**
+     * Moving average of the latency in nanoseconds, negative until sampled.
+     */
+    private double latency = -1;
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static synchronized ElasticTimeCalibrator get() {
+        if (INSTANCE == null) {
+            INSTANCE = new ElasticTimeCalibrator(benchmark(), Runtime.getRuntime().availableProcessors(), true);
+            LOGGER.info(String.format("Environment is %.2f times slower than the reference one", INSTANCE.speed));
+        }
+        return INSTANCE;
+    }
+
+    /*package*/ ElasticTimeCalibrator(double speed, int processors, boolean sampleSystemLoad) {
+        this.speed = speed;
+        this.processors = processors;
+        this.sampleSystemLoad = sampleSystemLoad;
+    }
+
+    /**
+     * Record the duration of a request to Jenkins.
+     */
+    public synchronized void sampleLatency(long nanos) {
+        latency = latency < 0 ? nanos : latency + SMOOTHING * (nanos - latency);
+    }
+
+    /**
+     * @param loadAverage System load average, negative when not available.
+     */
+    /*package*/ synchronized void sampleLoad(double loadAverage) {
+        if (loadAverage >= 0) {
+            load = loadAverage / processors;
+        }
+    }
+
+    /**
+     * Times the timeouts are to be prolonged in the current state of the environment.
+     */
+    public synchronized double getCoefficient() {
+        long now = System.nanoTime();
+        if (sampleSystemLoad && (loadSampled == 0 || now - loadSampled > LOAD_SAMPLE_INTERVAL)) {
+            loadSampled = now;
+            sampleLoad(ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage());
+        }
+
+        double coefficient = speed * Math.max(1, load) * Math.max(1, latency / REFERENCE_LATENCY);
+        return Math.min(MAX_COEFFICIENT, Math.max(1, coefficient));
+    }
+
+    public synchronized void report(PrintStream out) {
+        out.println(String.format("Elastic time coefficient %.2f (speed %.2f, load %.2f per processor, latency %d ms)",
+                getCoefficient(), speed, load, TimeUnit.NANOSECONDS.toMillis(Math.max(0, (long) latency))
+        ));
+    }
+
+    /**
+     * Time a CPU bound task, the best of several runs so the JIT and short hiccups do not count.
+     */
+    private static double benchmark() {
+        try {
+            byte[] data = new byte[1024 * 1024];
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < 8; run++) {
+                long start = System.nanoTime();
+                MessageDigest md = MessageDigest.getInstance("SHA-1");
+                for (int i = 0; i < 16; i++) {
+                    md.update(data);
+                }
+                md.digest();
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            return (double) best / REFERENCE_BENCHMARK;
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
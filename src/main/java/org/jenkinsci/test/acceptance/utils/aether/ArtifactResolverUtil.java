@@ -26,6 +26,8 @@ package org.jenkinsci.test.acceptance.utils.aether;
 
 import java.io.File;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.inject.Inject;
 
@@ -57,6 +59,12 @@ import org.slf4j.LoggerFactory;
 public class ArtifactResolverUtil {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactResolverUtil.class);
+
+    /**
+     * Released artifacts resolved in this JVM, keyed by their coordinates.
+     */
+    private static final ConcurrentMap<String, ArtifactResult> RESOLVED = new ConcurrentHashMap<>();
+
     private RepositorySystem repoSystem;
     private RepositorySystemSession repoSystemSession;
 
@@ -72,6 +80,15 @@ public class ArtifactResolverUtil {
      * @return artifact resolution result
      */
     public ArtifactResult resolve(DefaultArtifact artifact) {
+        // Released artifacts never change so there is no need to consult Aether repeatedly
+        String gav = artifact.toString();
+        if (!artifact.isSnapshot()) {
+            ArtifactResult cached = RESOLVED.get(gav);
+            if (cached != null && cached.getArtifact().getFile().isFile()) {
+                return cached;
+            }
+        }
+
         Builder repoBuilder = new RemoteRepository.Builder(
                 "repo.jenkins-ci.org", "default",
                 "http://repo.jenkins-ci.org/public/");
@@ -108,6 +125,9 @@ public class ArtifactResolverUtil {
             throw new RuntimeException("Could not resolve " + artifact + " from Maven repository",e);
         }
         LOGGER.debug("Found " + r);
+        if (!artifact.isSnapshot()) {
+            RESOLVED.put(gav, r);
+        }
         return r;
     }
 
@@ -10,6 +10,7 @@ import org.jenkinsci.test.acceptance.junit.Wait;
 import org.jenkinsci.test.acceptance.po.Artifact;
 import org.jenkinsci.test.acceptance.po.ArtifactArchiver;
 import org.jenkinsci.test.acceptance.po.Build;
+import org.jenkinsci.test.acceptance.po.BuildSet;
 import org.jenkinsci.test.acceptance.po.BuildWithParameters;
 import org.jenkinsci.test.acceptance.po.FreeStyleJob;
 import org.jenkinsci.test.acceptance.po.Job;
@@ -119,6 +120,24 @@ public class FreestyleJobTest extends AbstractJUnitTest {
         assertTrue(b2.isInProgress());
     }
 
+    @Test
+    public void waitForConcurrentBuilds() throws Exception {
+        FreeStyleJob j = jenkins.jobs.create(FreeStyleJob.class);
+        j.configure();
+        j.concurrentBuild.check();
+        j.addShellStep("sleep 5");
+        j.save();
+        Build b1 = j.scheduleBuild().waitUntilStarted();
+        Build b2 = j.scheduleBuild().waitUntilStarted();
+
+        BuildSet builds = new BuildSet(b1, b2).waitUntilAllFinished();
+        assertThat(builds.getFinished().size(), equalTo(2));
+        for (Build b : builds) {
+            assertFalse(b.isInProgress());
+            b.shouldSucceed();
+        }
+    }
+
     @Test
     public void disableJob() throws Exception {
         FreeStyleJob j = jenkins.jobs.create(FreeStyleJob.class);
@@ -0,0 +1,166 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ClassDataSharingTest {
+
+    private static final List<String> OPTIONS = Collections.singletonList("-XX:TieredStopAtLevel=1");
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void javaVersion() throws Exception {
+        assertThat(ClassDataSharing.javaVersion(new FakeProcess(
+                "java version \"1.8.0_292\"\nJava(TM) SE Runtime Environment (build 1.8.0_292-b10)\n", true
+        )), equalTo(8));
+        assertThat(ClassDataSharing.javaVersion(new FakeProcess(
+                "openjdk version \"17.0.9\" 2023-10-17\nOpenJDK Runtime Environment Temurin-17.0.9+9\n", true
+        )), equalTo(17));
+        assertThat(ClassDataSharing.javaVersion(new FakeProcess("No such file or directory\n", true)), equalTo(0));
+    }
+
+    @Test
+    public void selectsGc() {
+        assertThat(ClassDataSharing.selectsGc(Arrays.asList("-Xmx1g", "-XX:+UseG1GC")), equalTo(true));
+        assertThat(ClassDataSharing.selectsGc(Collections.singletonList("-XX:+UseParallelGC")), equalTo(true));
+        assertThat(ClassDataSharing.selectsGc(Collections.singletonList("-XX:-UseG1GC")), equalTo(false));
+        assertThat(ClassDataSharing.selectsGc(Collections.singletonList("-XX:+UseCompressedOops")), equalTo(false));
+        assertThat(ClassDataSharing.selectsGc(Collections.<String>emptyList()), equalTo(false));
+    }
+
+    @Test
+    public void key() throws Exception {
+        File war = tmp.newFile("jenkins.war");
+        FileUtils.writeStringToFile(war, "war");
+        File plugins = tmp.newFolder("plugins");
+        File plugin = new File(plugins, "git.jpi");
+        FileUtils.writeStringToFile(plugin, "git");
+        String java = "/opt/jdk/bin/java";
+
+        String key = ClassDataSharing.key(java, war, plugins, OPTIONS);
+        assertThat(key, equalTo(ClassDataSharing.key(java, war, plugins, OPTIONS)));
+
+        // Plugins get different timestamps in every JENKINS_HOME
+        plugin.setLastModified(plugin.lastModified() - 60000);
+        assertThat(ClassDataSharing.key(java, war, plugins, OPTIONS), equalTo(key));
+        // Exploded plugins are not considered
+        new File(plugins, "git").mkdir();
+        assertThat(ClassDataSharing.key(java, war, plugins, OPTIONS), equalTo(key));
+
+        assertThat(ClassDataSharing.key("/opt/other/bin/java", war, plugins, OPTIONS), not(equalTo(key)));
+        assertThat(ClassDataSharing.key(java, war, plugins, Arrays.asList("-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC")), not(equalTo(key)));
+
+        FileUtils.writeStringToFile(new File(plugins, "ant.jpi"), "ant");
+        String withAnt = ClassDataSharing.key(java, war, plugins, OPTIONS);
+        assertThat(withAnt, not(equalTo(key)));
+
+        FileUtils.writeStringToFile(plugin, "git-2");
+        assertThat(ClassDataSharing.key(java, war, plugins, OPTIONS), not(equalTo(withAnt)));
+
+        File otherWar = tmp.newFile("other.war");
+        FileUtils.writeStringToFile(otherWar, "other");
+        assertThat(ClassDataSharing.key(java, otherWar, plugins, OPTIONS), not(equalTo(ClassDataSharing.key(java, war, plugins, OPTIONS))));
+    }
+
+    @Test
+    public void firstWriterWins() throws Exception {
+        File archive = new File(tmp.getRoot(), "key.jsa");
+        File first = tmp.newFile("key.jsa.first.tmp");
+        FileUtils.writeStringToFile(first, "first");
+        File second = tmp.newFile("key.jsa.second.tmp");
+        FileUtils.writeStringToFile(second, "second");
+
+        ClassDataSharing.Profile training = new ClassDataSharing.Profile(OPTIONS, archive, first);
+        assertThat(training.isTraining(), equalTo(true));
+        assertThat(training.getPhase(), equalTo("controller.start.cds-training"));
+        training.publish(new FakeProcess("", true));
+        assertThat(FileUtils.readFileToString(archive), equalTo("first"));
+        assertThat(first.exists(), equalTo(false));
+
+        // Recorded concurrently, but the archive is published already
+        new ClassDataSharing.Profile(OPTIONS, archive, second).publish(new FakeProcess("", true));
+        assertThat(FileUtils.readFileToString(archive), equalTo("first"));
+        assertThat(second.exists(), equalTo(false));
+
+        ClassDataSharing.Profile shared = new ClassDataSharing.Profile(OPTIONS, archive, null);
+        assertThat(shared.isTraining(), equalTo(false));
+        assertThat(shared.getPhase(), equalTo("controller.start.cds"));
+        shared.publish(new FakeProcess("", false));
+        assertThat(archive.exists(), equalTo(true));
+    }
+
+    @Test
+    public void doNotPublishIncompleteArchive() throws Exception {
+        File archive = new File(tmp.getRoot(), "key.jsa");
+
+        // Still being written by the JVM that did not exit
+        File running = tmp.newFile("key.jsa.running.tmp");
+        FileUtils.writeStringToFile(running, "partial");
+        new ClassDataSharing.Profile(OPTIONS, archive, running).publish(new FakeProcess("", false));
+        assertThat(archive.exists(), equalTo(false));
+        assertThat(running.exists(), equalTo(false));
+
+        // Not recorded by the JVM
+        File empty = tmp.newFile("key.jsa.empty.tmp");
+        new ClassDataSharing.Profile(OPTIONS, archive, empty).publish(new FakeProcess("", true));
+        assertThat(archive.exists(), equalTo(false));
+        assertThat(empty.exists(), equalTo(false));
+    }
+
+    private static final class FakeProcess extends Process {
+        private final InputStream out;
+        private final boolean exited;
+
+        private FakeProcess(String out, boolean exited) {
+            this.out = new ByteArrayInputStream(out.getBytes(StandardCharsets.UTF_8));
+            this.exited = exited;
+        }
+
+        @Override public OutputStream getOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override public InputStream getInputStream() {
+            return out;
+        }
+
+        @Override public InputStream getErrorStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override public int waitFor() {
+            if (!exited) throw new AssertionError("Would block forever");
+            return 0;
+        }
+
+        @Override public boolean waitFor(long timeout, TimeUnit unit) {
+            return exited;
+        }
+
+        @Override public int exitValue() {
+            if (!exited) throw new IllegalThreadStateException();
+            return 0;
+        }
+
+        @Override public void destroy() {
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ExplodedArtifactCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void linkWar() throws Exception {
+        ExplodedArtifactCache cache = new ExplodedArtifactCache(tmp.newFolder("cache"), true);
+        File war = tmp.newFile("jenkins.war");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(war))) {
+            zip.putNextEntry(new ZipEntry("WEB-INF/"));
+            zip.putNextEntry(new ZipEntry("WEB-INF/web.xml"));
+            zip.write("<web-app/>".getBytes(StandardCharsets.UTF_8));
+        }
+        war.setLastModified(1000000000000L);
+
+        File home = tmp.newFolder("home");
+        cache.linkWar(war, home);
+        assertThat(FileUtils.readFileToString(new File(home, "war/WEB-INF/web.xml")), equalTo("<web-app/>"));
+        assertThat(new File(home, "war/.timestamp").lastModified(), equalTo(war.lastModified()));
+
+        // Other instance uses the same content
+        File other = tmp.newFolder("other");
+        cache.linkWar(war, other);
+        assertThat(FileUtils.readFileToString(new File(other, "war/WEB-INF/web.xml")), equalTo("<web-app/>"));
+        assertThat(new File(tmp.getRoot(), "cache/war").list(), arrayWithSize(1));
+    }
+
+    @Test
+    public void captureAndLinkPlugins() throws Exception {
+        ExplodedArtifactCache cache = new ExplodedArtifactCache(tmp.newFolder("cache"), true);
+
+        File home = tmp.newFolder("home");
+        File archive = new File(home, "plugins/git.jpi");
+        FileUtils.writeStringToFile(archive, "archive");
+        FileUtils.writeStringToFile(new File(home, "plugins/git/WEB-INF/lib/git.jar"), "exploded");
+        new File(home, "plugins/git/.timestamp2").createNewFile();
+        new File(home, "plugins/git/.timestamp2").setLastModified(archive.lastModified());
+        // Not exploded from this archive
+        FileUtils.writeStringToFile(new File(home, "plugins/ant.jpi"), "ant");
+        FileUtils.writeStringToFile(new File(home, "plugins/ant/WEB-INF/lib/ant.jar"), "stale");
+
+        cache.capturePlugins(home);
+        FileUtils.deleteDirectory(home);
+
+        File restarted = tmp.newFolder("restarted");
+        File copy = new File(restarted, "plugins/git.jpi");
+        FileUtils.writeStringToFile(copy, "archive");
+        FileUtils.writeStringToFile(new File(restarted, "plugins/ant.jpi"), "ant");
+        cache.linkPlugins(restarted);
+
+        assertThat(FileUtils.readFileToString(new File(restarted, "plugins/git/WEB-INF/lib/git.jar")), equalTo("exploded"));
+        assertThat(new File(restarted, "plugins/git/.timestamp2").lastModified(), equalTo(copy.lastModified()));
+        assertThat(new File(restarted, "plugins/ant").exists(), equalTo(false));
+    }
+}
@@ -0,0 +1,91 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.test.acceptance.guice.World;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Injector;
+
+/**
+ * Compares booting {@link WinstoneController} from a cold JENKINS_HOME with booting it from a {@link JenkinsHomeSnapshots snapshot}.
+ *
+ * Not run as a part of the suite, invoke explicitly: <tt>mvn test -Dtest=JenkinsHomeSnapshotBenchmark</tt>.
+ * The number of boots measured for each variant can be set by <tt>-Dbenchmark.iterations=N</tt>.
+ */
+public class JenkinsHomeSnapshotBenchmark {
+
+    private final int iterations = Integer.getInteger("benchmark.iterations", 3);
+
+    private World world;
+    private File snapshotDir;
+
+    @Before
+    public void setUp() throws Exception {
+        world = World.get();
+        world.startTestScope("JenkinsHomeSnapshotBenchmark");
+        snapshotDir = Files.createTempDirectory("home-snapshots").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        world.endTestScope();
+        FileUtils.deleteDirectory(snapshotDir);
+    }
+
+    @Test
+    public void coldStartVersusSnapshotRestore() throws Exception {
+        Injector cold = injector(new JenkinsHomeSnapshots(snapshotDir, false));
+        Injector warm = injector(new JenkinsHomeSnapshots(snapshotDir, true));
+
+        // Capture the snapshot, not measured
+        LocalController seed = boot(warm);
+        seed.captureHomeSnapshot();
+        seed.close();
+
+        long coldTotal = 0;
+        long warmTotal = 0;
+        for (int i = 0; i < iterations; i++) {
+            coldTotal += measure(cold, false);
+            warmTotal += measure(warm, true);
+        }
+
+        System.out.printf("Cold start:       %6d ms on average%n", coldTotal / iterations);
+        System.out.printf("Snapshot restore: %6d ms on average%n", warmTotal / iterations);
+    }
+
+    private long measure(Injector injector, boolean expectRestored) throws Exception {
+        long start = System.nanoTime();
+        LocalController controller = boot(injector);
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (controller.isRestoredFromSnapshot() != expectRestored) {
+            throw new AssertionError("Restored from snapshot: " + controller.isRestoredFromSnapshot());
+        }
+        controller.close();
+        return duration;
+    }
+
+    private LocalController boot(Injector injector) throws Exception {
+        LocalController controller = injector.getInstance(WinstoneController.class);
+        controller.postConstruct(injector);
+        controller.setSnapshotPlugins(Collections.<String>emptyList());
+        controller.start();
+        return controller;
+    }
+
+    private Injector injector(final JenkinsHomeSnapshots snapshots) {
+        return world.getInjector().createChildInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(JenkinsHomeSnapshots.class).toInstance(snapshots);
+            }
+        });
+    }
+}
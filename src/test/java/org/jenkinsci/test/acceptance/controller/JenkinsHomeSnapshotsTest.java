@@ -0,0 +1,91 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class JenkinsHomeSnapshotsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void keyReflectsSetup() throws Exception {
+        JenkinsHomeSnapshots snapshots = new JenkinsHomeSnapshots(tmp.newFolder("snapshots"), true);
+        File war = tmp.newFile("jenkins.war");
+        FileUtils.writeStringToFile(war, "war");
+
+        String key = snapshots.key(war, null, Arrays.asList("git", "ant@1.2"), "winstone");
+        assertThat(snapshots.key(war, null, Arrays.asList("ant@1.2", "git"), "winstone"), equalTo(key));
+        assertThat(snapshots.key(war, null, Collections.singletonList("git"), "winstone"), not(equalTo(key)));
+        assertThat(snapshots.key(war, null, Arrays.asList("git", "ant@1.2"), "winstone -Xmx1g"), not(equalTo(key)));
+
+        File plugins = tmp.newFolder("plugins");
+        FileUtils.writeStringToFile(new File(plugins, "given.hpi"), "given");
+        assertThat(snapshots.key(war, plugins, Arrays.asList("git", "ant@1.2"), "winstone"), not(equalTo(key)));
+    }
+
+    @Test
+    public void leaveOutVolatileFiles() throws Exception {
+        JenkinsHomeSnapshots snapshots = new JenkinsHomeSnapshots(tmp.newFolder("snapshots"), true);
+        File home = tmp.newFolder("home");
+        FileUtils.writeStringToFile(new File(home, "config.xml"), "<hudson/>");
+        FileUtils.writeStringToFile(new File(home, "logs/tasks/Download metadata.log"), "log");
+        FileUtils.writeStringToFile(new File(home, "atomic123.tmp"), "<partial");
+        FileUtils.writeStringToFile(new File(home, "plugins/git.jpi.tmp"), "downloading");
+
+        snapshots.capture("key", home);
+        File restored = tmp.newFolder("restored");
+        assertThat(snapshots.restore("key", restored), equalTo(true));
+
+        assertThat(FileUtils.readFileToString(new File(restored, "config.xml")), equalTo("<hudson/>"));
+        assertThat(new File(restored, "logs").exists(), equalTo(false));
+        assertThat(new File(restored, "atomic123.tmp").exists(), equalTo(false));
+        assertThat(new File(restored, "plugins/git.jpi.tmp").exists(), equalTo(false));
+    }
+
+    @Test
+    public void captureAndRestore() throws Exception {
+        JenkinsHomeSnapshots snapshots = new JenkinsHomeSnapshots(tmp.newFolder("snapshots"), true);
+        File home = tmp.newFolder("home");
+        FileUtils.writeStringToFile(new File(home, "config.xml"), "<hudson/>");
+        FileUtils.writeStringToFile(new File(home, "jenkins.model.JenkinsLocationConfiguration.xml"), "port");
+        FileUtils.writeStringToFile(new File(home, "plugins/git.jpi"), "archive");
+        FileUtils.writeStringToFile(new File(home, "plugins/git/WEB-INF/lib/git.jar"), "exploded");
+
+        assertThat(snapshots.restore("key", tmp.newFolder("not-there")), equalTo(false));
+
+        snapshots.capture("key", home);
+        assertThat(snapshots.exists("key"), equalTo(true));
+
+        File restored = tmp.newFolder("restored");
+        FileUtils.writeStringToFile(new File(restored, "stale"), "stale");
+        assertThat(snapshots.restore("key", restored), equalTo(true));
+
+        assertThat(new File(restored, "stale").exists(), equalTo(false));
+        assertThat(new File(restored, "jenkins.model.JenkinsLocationConfiguration.xml").exists(), equalTo(false));
+        assertThat(FileUtils.readFileToString(new File(restored, "config.xml")), equalTo("<hudson/>"));
+        assertThat(FileUtils.readFileToString(new File(restored, "plugins/git.jpi")), equalTo("archive"));
+        assertThat(FileUtils.readFileToString(new File(restored, "plugins/git/WEB-INF/lib/git.jar")), equalTo("exploded"));
+
+        // Modifying restored home does not affect the snapshot
+        FileUtils.writeStringToFile(new File(restored, "config.xml"), "<modified/>");
+        FileUtils.writeStringToFile(new File(restored, "plugins/git.jpi"), "modified");
+        Files.delete(new File(restored, "plugins/git/WEB-INF/lib/git.jar").toPath());
+
+        File again = tmp.newFolder("again");
+        snapshots.restore("key", again);
+        assertThat(FileUtils.readFileToString(new File(again, "config.xml")), equalTo("<hudson/>"));
+        assertThat(FileUtils.readFileToString(new File(again, "plugins/git.jpi")), equalTo("archive"));
+        assertThat(FileUtils.readFileToString(new File(again, "plugins/git/WEB-INF/lib/git.jar")), equalTo("exploded"));
+    }
+}
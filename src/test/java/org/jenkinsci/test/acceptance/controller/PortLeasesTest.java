@@ -0,0 +1,94 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+
+public class PortLeasesTest {
+
+    /**
+     * Ports are not bound by the test, so whether they are used on the machine does not matter.
+     */
+    private static final IntPredicate ALL_FREE = port -> true;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void leasesDoNotOverlap() throws Exception {
+        // Instances in one JVM lock the files as separate processes would
+        PortLeases first = new PortLeases(tmp.getRoot(), 50000, 50016, 4, ALL_FREE);
+        PortLeases second = new PortLeases(tmp.getRoot(), 50000, 50016, 4, ALL_FREE);
+
+        Set<Integer> ports = new HashSet<>();
+        for (int i = 0; i < 8; i++) {
+            assertThat(ports.add(first.acquire()), equalTo(true));
+            assertThat(ports.add(second.acquire()), equalTo(true));
+        }
+        for (int port : ports) {
+            assertThat(port, allOf(greaterThanOrEqualTo(50000), lessThan(50016)));
+        }
+
+        try {
+            first.acquire();
+            fail("All blocks are leased");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), containsString("are leased"));
+        }
+    }
+
+    @Test
+    public void releasedPortIsReused() throws Exception {
+        PortLeases leases = new PortLeases(tmp.getRoot(), 50000, 50002, 2, ALL_FREE);
+        int port = leases.acquire();
+        leases.acquire();
+        leases.release(port);
+        assertThat(leases.acquire(), equalTo(port));
+    }
+
+    @Test
+    public void skipPortInUse() throws Exception {
+        PortLeases leases = new PortLeases(tmp.getRoot(), 50000, 50002, 2, port -> port != 50000);
+        assertThat(leases.acquire(), equalTo(50001));
+    }
+
+    @Test
+    public void acquireParticularPort() throws Exception {
+        PortLeases first = new PortLeases(tmp.getRoot(), 50000, 50008, 4, ALL_FREE);
+        PortLeases second = new PortLeases(tmp.getRoot(), 50000, 50008, 4, ALL_FREE);
+
+        assertThat(first.acquire(50005), equalTo(true));
+        assertThat(first.acquire(50005), equalTo(false));
+        // Block is leased by the first one
+        assertThat(second.acquire(50006), equalTo(false));
+        assertThat(second.acquire(50001), equalTo(true));
+
+        // Rest of the block is handed out as usual
+        Set<Integer> ports = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            ports.add(first.acquire());
+        }
+        assertThat(ports, containsInAnyOrder(50004, 50006, 50007));
+
+        first.release(50005);
+        assertThat(first.acquire(), equalTo(50005));
+
+        // Out of the range
+        assertThat(new PortLeases(tmp.getRoot(), 50000, 50008, 4, port -> port != 40001).acquire(40001), equalTo(false));
+    }
+
+    @Test
+    public void allPortsInUse() throws Exception {
+        PortLeases leases = new PortLeases(tmp.getRoot(), 50000, 50004, 2, port -> port >= 50002);
+        assertThat(leases.acquire(), greaterThanOrEqualTo(50002));
+    }
+}
@@ -0,0 +1,123 @@
+package org.jenkinsci.test.acceptance.controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.test.acceptance.controller.WinstoneCriuController.Slot;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class WinstoneCriuControllerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void key() throws Exception {
+        File war = tmp.newFile("jenkins.war");
+        FileUtils.writeStringToFile(war, "war");
+        File plugins = tmp.newFolder("plugins");
+        File plugin = new File(plugins, "git.jpi");
+        FileUtils.writeStringToFile(plugin, "git");
+        File java = tmp.newFolder("jdk");
+
+        String key = WinstoneCriuController.key(war, plugins, java, null, null);
+        assertThat(key, equalTo(WinstoneCriuController.key(war, plugins, java, null, null)));
+
+        // Plugins get different timestamps in every JENKINS_HOME
+        plugin.setLastModified(plugin.lastModified() - 60000);
+        assertThat(WinstoneCriuController.key(war, plugins, java, null, null), equalTo(key));
+
+        assertThat(WinstoneCriuController.key(war, plugins, tmp.newFolder("other-jdk"), null, null), not(equalTo(key)));
+        assertThat(WinstoneCriuController.key(war, plugins, java, "-Xmx1g", null), not(equalTo(key)));
+
+        // Checkpoints seeded from different mirrors are not interchangeable
+        String mirrored = WinstoneCriuController.key(war, plugins, java, null, "http://127.0.0.1:40000/ 0a1b");
+        assertThat(mirrored, not(equalTo(key)));
+        assertThat(WinstoneCriuController.key(war, plugins, java, null, "http://127.0.0.1:40001/ 0a1b"), not(equalTo(mirrored)));
+        assertThat(WinstoneCriuController.key(war, plugins, java, null, "http://127.0.0.1:40000/ 2c3d"), not(equalTo(mirrored)));
+
+        FileUtils.writeStringToFile(plugin, "git-2");
+        assertThat(WinstoneCriuController.key(war, plugins, java, null, null), not(equalTo(key)));
+    }
+
+    @Test
+    public void preferCheckpointedSlots() throws Exception {
+        PortLeases leases = leases();
+        File keyDir = tmp.newFolder("key");
+        checkpointed(keyDir, 1, 50001);
+
+        Slot first = Slot.acquire(keyDir, 3, leases);
+        assertThat(first.isComplete(), equalTo(true));
+        assertThat(first.getHome(), equalTo(new File(keyDir, "1/work/home")));
+        assertThat(first.readPort(), equalTo(50001));
+
+        // Locked by the first instance
+        Slot second = Slot.acquire(keyDir, 3, leases);
+        assertThat(second.isComplete(), equalTo(false));
+        assertThat(second.getHome(), equalTo(new File(keyDir, "0/work/home")));
+
+        Slot third = Slot.acquire(keyDir, 3, leases);
+        assertThat(third.getHome(), equalTo(new File(keyDir, "2/work/home")));
+
+        assertThat(Slot.acquire(keyDir, 3, leases), nullValue());
+
+        first.release();
+        assertThat(Slot.acquire(keyDir, 3, leases).getHome(), equalTo(new File(keyDir, "1/work/home")));
+    }
+
+    @Test
+    public void keepPortLeasedWhileSlotIsUsed() throws Exception {
+        PortLeases leases = leases();
+        File keyDir = tmp.newFolder("key");
+        checkpointed(keyDir, 0, 50001);
+
+        Slot slot = Slot.acquire(keyDir, 1, leases);
+        assertThat(slot.isComplete(), equalTo(true));
+        // Not handed out to other controllers
+        assertThat(leases.acquire(50001), equalTo(false));
+
+        slot.release();
+        assertThat(leases.acquire(50001), equalTo(true));
+    }
+
+    @Test
+    public void skipSlotWithPortInUse() throws Exception {
+        PortLeases leases = leases();
+        File keyDir = tmp.newFolder("key");
+        checkpointed(keyDir, 0, 50001);
+        assertThat(leases.acquire(50001), equalTo(true));
+
+        Slot slot = Slot.acquire(keyDir, 2, leases);
+        assertThat(slot.isComplete(), equalTo(false));
+        assertThat(slot.getHome(), equalTo(new File(keyDir, "1/work/home")));
+    }
+
+    @Test
+    public void leasePortToCheckpointWith() throws Exception {
+        PortLeases leases = leases();
+        Slot slot = Slot.acquire(tmp.newFolder("key"), 1, leases);
+        int port = slot.leasePort();
+        assertThat(slot.leasePort(), equalTo(port));
+        assertThat(leases.acquire(port), equalTo(false));
+
+        slot.release();
+        assertThat(leases.acquire(port), equalTo(true));
+    }
+
+    private PortLeases leases() throws IOException {
+        return new PortLeases(tmp.newFolder("leases"), 50000, 50008, 4, port -> true);
+    }
+
+    private static void checkpointed(File keyDir, int index, int port) throws IOException {
+        File dir = new File(keyDir, Integer.toString(index));
+        FileUtils.writeStringToFile(new File(dir, "port"), Integer.toString(port), StandardCharsets.UTF_8);
+        FileUtils.touch(new File(dir, ".complete"));
+    }
+}
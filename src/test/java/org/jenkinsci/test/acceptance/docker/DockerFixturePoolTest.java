@@ -0,0 +1,144 @@
+package org.jenkinsci.test.acceptance.docker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class DockerFixturePoolTest {
+
+    private final FakeDocker docker = new FakeDocker();
+
+    private DockerFixturePool pool;
+
+    @After
+    public void close() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void handOutSpare() throws Exception {
+        pool = new DockerFixturePool(true, 1, docker);
+
+        Stateful first = pool.acquire(Stateful.class);
+        awaitIdle(Stateful.class, 1);
+        assertThat(docker.launched, hasSize(2));
+
+        Stateful second = pool.acquire(Stateful.class);
+        assertThat(second, not(sameInstance(first)));
+        assertThat(second, sameInstance(docker.launched.get(1)));
+
+        pool.release(first);
+        assertThat(first.closed, equalTo(true));
+    }
+
+    @Test
+    public void reuseResetContainer() throws Exception {
+        pool = new DockerFixturePool(true, 0, docker);
+
+        Stateless container = pool.acquire(Stateless.class);
+        pool.release(container);
+        assertThat(container.resets, equalTo(1));
+        assertThat(container.closed, equalTo(false));
+
+        assertThat(pool.acquire(Stateless.class), sameInstance(container));
+        assertThat(docker.launched, hasSize(1));
+    }
+
+    @Test
+    public void discardContainerThatCanNotBeReset() throws Exception {
+        pool = new DockerFixturePool(true, 0, docker);
+
+        Stateless container = pool.acquire(Stateless.class);
+        container.resettable = false;
+        pool.release(container);
+        assertThat(container.closed, equalTo(true));
+
+        assertThat(pool.acquire(Stateless.class), not(sameInstance(container)));
+    }
+
+    @Test
+    public void waitForSpareToGetReady() throws Exception {
+        pool = new DockerFixturePool(true, 1, docker);
+        docker.ready = false;
+
+        pool.acquire(Stateless.class);
+        Thread.sleep(1500);
+        assertThat(pool.countIdle(Stateless.class), equalTo(0));
+
+        docker.ready = true;
+        awaitIdle(Stateless.class, 1);
+    }
+
+    @Test
+    public void closeIdleContainers() throws Exception {
+        pool = new DockerFixturePool(true, 1, docker);
+        pool.acquire(Stateful.class);
+        awaitIdle(Stateful.class, 1);
+
+        pool.close();
+        assertThat(docker.launched.get(1).closed, equalTo(true));
+    }
+
+    private void awaitIdle(Class<?> fixture, int count) throws InterruptedException {
+        for (int i = 0; i < 100 && pool.countIdle(fixture) < count; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(pool.countIdle(fixture), equalTo(count));
+    }
+
+    /**
+     * Creates the containers without docker.
+     */
+    private static final class FakeDocker implements DockerFixturePool.Launcher {
+        final List<Fake> launched = new ArrayList<>();
+        volatile boolean ready = true;
+
+        @Override
+        public synchronized <T extends DockerContainer> T launch(Class<T> fixture) {
+            try {
+                T container = fixture.newInstance();
+                ((Fake) container).docker = this;
+                launched.add((Fake) container);
+                return container;
+            } catch (ReflectiveOperationException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    public static class Fake extends DockerContainer {
+        FakeDocker docker;
+        volatile boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    public static class Stateful extends Fake {
+    }
+
+    public static class Stateless extends Fake implements ReusableFixture {
+        int resets;
+        boolean resettable = true;
+
+        @Override
+        public boolean isReady() {
+            return docker.ready;
+        }
+
+        @Override
+        public boolean reset() {
+            resets++;
+            return resettable;
+        }
+    }
+}
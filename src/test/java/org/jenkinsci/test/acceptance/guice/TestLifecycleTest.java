@@ -0,0 +1,63 @@
+package org.jenkinsci.test.acceptance.guice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TestLifecycleTest {
+
+    @Test
+    public void threadsOfTestShareInstances() throws Exception {
+        final TestLifecycle lifecycle = new TestLifecycle();
+        final AtomicInteger created = new AtomicInteger();
+        final Provider<Object> scoped = lifecycle.scope(Key.get(Object.class), new Provider<Object>() {
+            @Override
+            public Object get() {
+                created.incrementAndGet();
+                return new Object();
+            }
+        });
+
+        lifecycle.startTestScope();
+        // Threads inherit the scope of the test
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                futures.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        return scoped.get();
+                    }
+                }));
+            }
+            Object instance = scoped.get();
+            for (Future<Object> f : futures) {
+                assertThat(f.get(), sameInstance(instance));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(created.get(), equalTo(1));
+        assertThat(lifecycle.getInstances(), hasSize(1));
+
+        // Taken out of the scope
+        Object instance = lifecycle.remove(Key.get(Object.class));
+        assertThat(lifecycle.getInstances(), empty());
+        lifecycle.put(Key.get(Object.class), instance);
+        assertThat(scoped.get(), sameInstance(instance));
+        lifecycle.endTestScope();
+    }
+}
@@ -0,0 +1,95 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class DiagnosticsWriterTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void compressBigFiles() throws Exception {
+        DiagnosticsWriter writer = new DiagnosticsWriter(true, 1024 * 1024);
+        File small = writer.write(new File(tmp.getRoot(), "test/small.log"), "small");
+        String content = StringUtils.repeat("big\n", DiagnosticsWriter.COMPRESS_THRESHOLD);
+        File big = writer.write(new File(tmp.getRoot(), "test/big.log"), content);
+        writer.flush();
+
+        assertThat(small.getName(), equalTo("small.log"));
+        assertThat(FileUtils.readFileToString(small, StandardCharsets.UTF_8), equalTo("small"));
+        assertThat(big.getName(), equalTo("big.log.gz"));
+        assertThat(gunzip(big), equalTo(content));
+    }
+
+    @Test
+    public void copyTail() throws Exception {
+        File log = tmp.newFile("jenkins.log");
+        FileUtils.writeStringToFile(log, "head\ntail\n", StandardCharsets.UTF_8);
+
+        DiagnosticsWriter writer = new DiagnosticsWriter(true, 5);
+        File copy = writer.copy(new File(tmp.getRoot(), "test/jenkins.log"), log);
+        // Written after the copy was requested
+        Files.write(log.toPath(), "more\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        writer.flush();
+
+        assertThat(FileUtils.readFileToString(copy, StandardCharsets.UTF_8), equalTo(
+                String.format("[... 5 bytes skipped ...]%n") + "tail\n"
+        ));
+    }
+
+    @Test
+    public void linkIdenticalContent() throws Exception {
+        DiagnosticsWriter writer = new DiagnosticsWriter(true, 1024 * 1024);
+        File first = writer.write(new File(tmp.getRoot(), "first/threaddump.log"), "dump");
+        File second = writer.write(new File(tmp.getRoot(), "second/threaddump.log"), "dump");
+        writer.flush();
+
+        assertThat(FileUtils.readFileToString(second, StandardCharsets.UTF_8), equalTo("dump"));
+        assertThat(Files.isSameFile(first.toPath(), second.toPath()), equalTo(true));
+    }
+
+    @Test
+    public void writeProducedContent() throws Exception {
+        DiagnosticsWriter writer = new DiagnosticsWriter(true, 1024 * 1024);
+        final Thread test = Thread.currentThread();
+        File file = writer.write(new File(tmp.getRoot(), "test/ui-recording.avi"), target -> {
+            assertThat(Thread.currentThread(), not(sameInstance(test)));
+            FileUtils.writeStringToFile(target, "recording", StandardCharsets.UTF_8);
+        });
+        writer.flush();
+
+        assertThat(file.getName(), equalTo("ui-recording.avi"));
+        assertThat(FileUtils.readFileToString(file, StandardCharsets.UTF_8), equalTo("recording"));
+    }
+
+    @Test
+    public void writeRightAwayWhenDisabled() throws Exception {
+        DiagnosticsWriter writer = new DiagnosticsWriter(false, 0);
+        String content = StringUtils.repeat("big\n", DiagnosticsWriter.COMPRESS_THRESHOLD);
+        File file = writer.write(new File(tmp.getRoot(), "test/big.log"), content);
+
+        assertThat(file.getName(), equalTo("big.log"));
+        assertThat(FileUtils.readFileToString(file, StandardCharsets.UTF_8), equalTo(content));
+    }
+
+    private static String gunzip(File file) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TimingsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void perTestAndSummary() throws Exception {
+        Timings timings = new Timings(tmp.getRoot());
+
+        timings.startTest("first");
+        for (int i = 1; i <= 100; i++) {
+            timings.record(null, "visit", i * 1000000L);
+        }
+        try (Timings.Timer t = timings.start("find")) {
+            // Measured
+        }
+        timings.endTest();
+
+        // Not a part of any test
+        try (Timings.Timer t = timings.start("find")) {
+            // Measured
+        }
+        timings.writeSummary();
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode test = mapper.readTree(new File(tmp.getRoot(), "first.json"));
+        assertThat(test.get("test").asText(), equalTo("first"));
+        assertThat(test.get("phases").get("find").get("count").asInt(), equalTo(1));
+        assertThat(test.get("phases").has("visit"), equalTo(false));
+
+        assertThat(timings.getSummaryFile().getName(), startsWith("summary-"));
+        JsonNode summary = mapper.readTree(timings.getSummaryFile());
+        assertThat(summary.get("find").get("count").asInt(), equalTo(2));
+        JsonNode visit = summary.get("visit");
+        assertThat(visit.get("count").asInt(), equalTo(100));
+        assertThat(visit.get("millis").asLong(), equalTo(5050L));
+        assertThat(visit.get("p50").asLong(), equalTo(50L));
+        assertThat(visit.get("p90").asLong(), equalTo(90L));
+        assertThat(visit.get("p99").asLong(), equalTo(99L));
+        assertThat(visit.get("max").asLong(), equalTo(100L));
+    }
+
+    @Test
+    public void fileName() throws Exception {
+        Timings timings = new Timings(tmp.getRoot());
+
+        timings.startTest("test[1: a/b](plugins.SomeTest)");
+        timings.endTest();
+
+        assertThat(Timings.fileName("test[1: a/b](plugins.SomeTest)"), equalTo("test_1__a_b__plugins.SomeTest_"));
+        assertThat(new File(tmp.getRoot(), "test_1__a_b__plugins.SomeTest_.json").isFile(), equalTo(true));
+    }
+}
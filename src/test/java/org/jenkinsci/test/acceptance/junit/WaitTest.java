@@ -0,0 +1,142 @@
+package org.jenkinsci.test.acceptance.junit;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import org.jenkinsci.test.acceptance.log.LogSplitter;
+import org.junit.Test;
+import org.openqa.selenium.TimeoutException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class WaitTest {
+
+    @Test
+    public void backoff() {
+        final long start = System.currentTimeMillis();
+        new Wait<>(this).withMessage("WaitTest.backoff")
+                .withBackoff(10, 100, TimeUnit.MILLISECONDS)
+                .withTimeout(10, TimeUnit.SECONDS)
+                .until(new Callable<Boolean>() {
+                    @Override public Boolean call() {
+                        return System.currentTimeMillis() - start > 300;
+                    }
+                })
+        ;
+
+        WaitStatistics.Entry entry = entry("WaitTest.backoff");
+        // 10 + 20 + 40 + 80 + 100 + 100 ... rather than polling every 10 ms
+        assertThat(entry.getPolls(), allOf(greaterThan(3), lessThan(10)));
+        assertThat(entry.getCount(WaitStatistics.Outcome.SUCCESS), equalTo(1));
+    }
+
+    @Test
+    public void wakeup() throws Exception {
+        final AtomicBoolean done = new AtomicBoolean();
+        final Wait<WaitTest> wait = new Wait<>(this).withMessage("WaitTest.wakeup")
+                .pollingEvery(1, TimeUnit.MINUTES)
+                .withTimeout(2, TimeUnit.MINUTES)
+        ;
+
+        new Thread() {
+            @Override public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                done.set(true);
+                wait.wakeup();
+            }
+        }.start();
+
+        long start = System.currentTimeMillis();
+        wait.until(new Callable<Boolean>() {
+            @Override public Boolean call() {
+                return done.get();
+            }
+        });
+        assertThat(System.currentTimeMillis() - start, lessThan(10000L));
+    }
+
+    @Test
+    public void wakeupOnLogLine() throws Exception {
+        final AtomicBoolean done = new AtomicBoolean();
+        final LogSplitter log = new LogSplitter();
+        Wait<WaitTest> wait = new Wait<>(this).withMessage("WaitTest.wakeupOnLogLine")
+                .pollingEvery(1, TimeUnit.MINUTES)
+                .withTimeout(2, TimeUnit.MINUTES)
+                .wakeupOn(log, Pattern.compile("Jenkins is fully up"))
+        ;
+
+        new Thread() {
+            @Override public void run() {
+                try {
+                    Thread.sleep(200);
+                    // Does not wake the wait up, it would sleep for a minute after the poll otherwise
+                    log.processLine("Started initialization");
+                    Thread.sleep(200);
+                    done.set(true);
+                    log.processLine("INFO: Jenkins is fully up and running");
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            }
+        }.start();
+
+        long start = System.currentTimeMillis();
+        wait.until(new Callable<Boolean>() {
+            @Override public Boolean call() {
+                return done.get();
+            }
+        });
+        assertThat(System.currentTimeMillis() - start, lessThan(10000L));
+        assertThat(entry("WaitTest.wakeupOnLogLine").getPolls(), equalTo(2));
+        assertThat(log.getListeners(), empty());
+    }
+
+    @Test
+    public void timeout() {
+        try {
+            new Wait<>(this).withMessage("WaitTest.timeout")
+                    .withTimeout(100, TimeUnit.MILLISECONDS)
+                    .until(new Callable<Boolean>() {
+                        @Override public Boolean call() {
+                            return false;
+                        }
+                    })
+            ;
+            throw new AssertionError("Timeout expected");
+        } catch (TimeoutException ex) {
+            // expected
+        }
+
+        assertThat(entry("WaitTest.timeout").getCount(WaitStatistics.Outcome.TIMEOUT), equalTo(1));
+    }
+
+    @Test
+    public void groupedByPattern() {
+        for (int i = 0; i < 3; i++) {
+            new Wait<>(this).withMessage("WaitTest.groupedByPattern %d", i)
+                    .withTimeout(10, TimeUnit.SECONDS)
+                    .until(new Callable<Boolean>() {
+                        @Override public Boolean call() {
+                            return true;
+                        }
+                    })
+            ;
+        }
+
+        assertThat(entry("WaitTest.groupedByPattern %d").getWaits(), equalTo(3));
+    }
+
+    private WaitStatistics.Entry entry(String name) {
+        for (WaitStatistics.Entry e : WaitStatistics.get().getEntries()) {
+            if (e.name.equals(name)) return e;
+        }
+        throw new AssertionError("No statistics for " + name);
+    }
+}
@@ -0,0 +1,90 @@
+package org.jenkinsci.test.acceptance.log;
+
+import java.io.Flushable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class AsyncLogListenerTest {
+
+    @Test
+    public void drainDeliversAndFlushes() throws Exception {
+        Recorder recorder = new Recorder();
+        AsyncLogListener async = new AsyncLogListener("test", recorder);
+        async.processLine("first");
+        async.processLine("last");
+
+        assertThat(async.drain(10, TimeUnit.SECONDS), equalTo(true));
+        assertThat(recorder.flushed, contains("first", "last"));
+
+        async.processClose(null);
+        assertThat(recorder.closed.await(10, TimeUnit.SECONDS), equalTo(true));
+        // Nothing to wait for once closed
+        assertThat(async.drain(10, TimeUnit.SECONDS), equalTo(true));
+    }
+
+    @Test
+    public void closeWhenQueueIsFull() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        Recorder recorder = new Recorder() {
+            @Override
+            public void processLine(String line) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                super.processLine(line);
+            }
+        };
+        final AsyncLogListener async = new AsyncLogListener("test", recorder);
+        // One line held by the consumer, the rest fills the queue
+        for (int i = 0; i <= AsyncLogListener.CAPACITY; i++) {
+            async.processLine("line " + i);
+        }
+
+        Thread close = new Thread() {
+            @Override
+            public void run() {
+                async.processClose(null);
+            }
+        };
+        close.start();
+        blocked.countDown();
+        close.join(10000);
+
+        assertThat(recorder.closed.await(10, TimeUnit.SECONDS), equalTo(true));
+        assertThat(recorder.lines, hasSize(AsyncLogListener.CAPACITY + 1));
+    }
+
+    private static class Recorder implements LogListener, Flushable {
+        final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> flushed = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void processLine(String line) {
+            lines.add(line);
+        }
+
+        @Override
+        public void flush() {
+            synchronized (lines) {
+                flushed.clear();
+                flushed.addAll(lines);
+            }
+        }
+
+        @Override
+        public void processClose(Exception t) {
+            closed.countDown();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.jenkinsci.test.acceptance.log;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+
+public class LogWatcherTest {
+
+    @Test
+    public void requiredLiteral() {
+        assertThat(literal("Jenkins is fully up and running"), equalTo("Jenkins is fully up and running"));
+        assertThat(literal("java.net.BindException: Address already in use"), equalTo("BindException: Address already in use"));
+        assertThat(literal("Started (\\d+) of job"), equalTo("Started "));
+        assertThat(literal("colou?r: [a-z]+ value"), equalTo(" value"));
+        assertThat(literal("abc+d"), equalTo("abc"));
+        assertThat(literal("x{2,3}yz"), equalTo("yz"));
+        assertThat(literal("[\\]abc]+def"), equalTo("def"));
+
+        assertThat(literal("foo|bar"), nullValue());
+        assertThat(literal("(?i)jenkins"), nullValue());
+        assertThat(literal(".*"), nullValue());
+        assertThat(LogWatcher.requiredLiteral(Pattern.compile("jenkins", Pattern.CASE_INSENSITIVE)), nullValue());
+    }
+
+    @Test
+    public void watch() throws Exception {
+        LogWatcher watcher = new LogWatcher();
+        Future<Matcher> started = watcher.watch(Pattern.compile("Started (\\d+)"));
+        Future<Matcher> alt = watcher.watch(Pattern.compile("(?i)READY|done"));
+        Future<Matcher> never = watcher.watch(Pattern.compile("never"));
+
+        watcher.processLine("Starting");
+        assertThat(started.isDone(), equalTo(false));
+        watcher.processLine("Started 42 of them");
+        assertThat(started.get().group(1), equalTo("42"));
+        watcher.processLine("Jenkins is ready");
+        assertThat(alt.get().group(), equalTo("ready"));
+
+        watcher.processClose(null);
+        try {
+            never.get();
+            fail();
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause(), instanceOf(IOException.class));
+        }
+    }
+
+    private static String literal(String regex) {
+        return LogWatcher.requiredLiteral(Pattern.compile(regex));
+    }
+}
@@ -0,0 +1,59 @@
+package org.jenkinsci.test.acceptance.recorder;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class FrameRingBufferTest {
+
+    @Test
+    public void dropOldFrames() {
+        FrameRingBuffer buffer = new FrameRingBuffer(1000, 1024);
+        buffer.add(frame(0, 10));
+        buffer.add(frame(500, 10));
+        buffer.add(frame(1500, 10));
+
+        assertThat(times(buffer), contains(500L, 1500L));
+        assertThat(buffer.bytes(), is(20L));
+    }
+
+    @Test
+    public void dropFramesOverSize() {
+        FrameRingBuffer buffer = new FrameRingBuffer(1000, 25);
+        buffer.add(frame(0, 10));
+        buffer.add(frame(100, 10));
+        buffer.add(frame(200, 10));
+        assertThat(times(buffer), contains(100L, 200L));
+
+        // Always keep the last one
+        buffer.add(frame(300, 100));
+        assertThat(times(buffer), contains(300L));
+    }
+
+    @Test
+    public void adaptRate() {
+        int max = BufferedScreenRecorder.MAX_RATE;
+        assertThat(BufferedScreenRecorder.adapt(max, 10, 2), is(max / 2));
+        assertThat(BufferedScreenRecorder.adapt(max, 1000, 0), is(max / 2));
+        assertThat(BufferedScreenRecorder.adapt(BufferedScreenRecorder.MIN_RATE, 1000, 2), is(BufferedScreenRecorder.MIN_RATE));
+        assertThat(BufferedScreenRecorder.adapt(2, 10, 0.1), is(3));
+        assertThat(BufferedScreenRecorder.adapt(max, 10, -1), is(max));
+    }
+
+    private static FrameRingBuffer.Frame frame(long time, int size) {
+        return new FrameRingBuffer.Frame(time, new byte[size]);
+    }
+
+    private static List<Long> times(FrameRingBuffer buffer) {
+        List<Long> times = new ArrayList<>();
+        for (FrameRingBuffer.Frame f : buffer.frames()) {
+            times.add(f.time);
+        }
+        return times;
+    }
+}
@@ -0,0 +1,72 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.test.acceptance.utils.ElasticTime;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ElasticTimeoutsTest {
+
+    @Test
+    public void followCoefficient() {
+        final double[] coefficient = {2};
+        ElasticTime time = new ElasticTime() {
+            @Override public double getCoefficient() {
+                return coefficient[0];
+            }
+        };
+        Session session = new Session();
+        ElasticTimeouts timeouts = new ElasticTimeouts(time);
+
+        timeouts.beforeNavigateTo("http://localhost:8080/", session.driver);
+        assertThat(session.set, contains("pageLoadTimeout 60000", "implicitlyWait 2000"));
+
+        // Close enough
+        coefficient[0] = 2.1;
+        timeouts.beforeFindBy(null, null, session.driver);
+        assertThat(session.set, hasSize(2));
+
+        coefficient[0] = 3;
+        timeouts.beforeFindBy(null, null, session.driver);
+        assertThat(session.set, contains(
+                "pageLoadTimeout 60000", "implicitlyWait 2000", "pageLoadTimeout 90000", "implicitlyWait 3000"
+        ));
+    }
+
+    /**
+     * Records the timeouts set.
+     */
+    private static final class Session implements InvocationHandler {
+        final List<String> set = new ArrayList<>();
+
+        final WebDriver driver = (WebDriver) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {WebDriver.class}, this
+        );
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "manage":
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {WebDriver.Options.class}, this);
+                case "timeouts":
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {WebDriver.Timeouts.class}, this);
+                case "pageLoadTimeout":
+                case "implicitlyWait":
+                    assertThat(args[1], equalTo((Object) TimeUnit.MILLISECONDS));
+                    set.add(method.getName() + " " + args[0]);
+                    return null;
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.jenkinsci.test.acceptance.selenium;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class WebDriverPoolTest {
+
+    private static final List<String> NONE = Collections.emptyList();
+
+    private final List<Browser> started = new ArrayList<>();
+
+    private final Callable<WebDriver> factory = new Callable<WebDriver>() {
+        @Override
+        public WebDriver call() {
+            Browser b = new Browser();
+            started.add(b);
+            return b.driver;
+        }
+    };
+
+    @Test
+    public void reuseSession() throws Exception {
+        WebDriverPool pool = new WebDriverPool(true, 3);
+
+        WebDriver first = pool.acquire("firefox@:0", factory);
+        started.get(0).windows.add("popup");
+        pool.release("firefox@:0", first, NONE);
+        assertThat(started.get(0).windows, contains("main"));
+        assertThat(started.get(0).url, equalTo("about:blank"));
+        assertThat(started.get(0).cookiesDeleted, equalTo(true));
+
+        assertThat(pool.acquire("firefox@:0", factory), sameInstance(first));
+        assertThat(pool.acquire("chrome@:0", factory), not(sameInstance(first)));
+        assertThat(started, hasSize(2));
+    }
+
+    @Test
+    public void cleanVisitedSites() throws Exception {
+        WebDriverPool pool = new WebDriverPool(true, 3);
+
+        WebDriver driver = pool.acquire("firefox", factory);
+        Browser browser = started.get(0);
+        browser.url = "https://plugins.jenkins.io/git";
+        pool.release("firefox", driver, Arrays.asList("http://localhost:8080/jenkins/", "http://localhost:8081/"));
+
+        assertThat(browser.cleaned, contains(
+                "https://plugins.jenkins.io/git", "http://localhost:8080/jenkins/", "http://localhost:8081/"
+        ));
+        assertThat(browser.url, equalTo("about:blank"));
+        assertThat(pool.acquire("firefox", factory), sameInstance(driver));
+    }
+
+    @Test
+    public void visitedPages() {
+        WebDriverPool.VisitedPages visited = new WebDriverPool.VisitedPages();
+        visited.add("about:blank");
+        visited.add("http://localhost:8080/jenkins/job/foo/configure");
+        assertThat(visited.getPages(), contains("http://localhost:8080/jenkins/job/foo/"));
+
+        visited.add("http://localhost:8080/jenkins/job/bar/");
+        visited.add("http://localhost:8080/jenkins/manage?param=value");
+        visited.add("http://localhost:8081");
+        assertThat(visited.getPages(), contains("http://localhost:8080/jenkins/", "http://localhost:8081/"));
+    }
+
+    @Test
+    public void discardWornOutSession() throws Exception {
+        WebDriverPool pool = new WebDriverPool(true, 2);
+
+        WebDriver driver = pool.acquire("firefox", factory);
+        pool.release("firefox", driver, NONE);
+        driver = pool.acquire("firefox", factory);
+        pool.release("firefox", driver, NONE);
+        assertThat(started.get(0).quit, equalTo(true));
+
+        assertThat(pool.acquire("firefox", factory), not(sameInstance(driver)));
+    }
+
+    @Test
+    public void discardUnreachableSession() throws Exception {
+        WebDriverPool pool = new WebDriverPool(true, 10);
+
+        WebDriver driver = pool.acquire("firefox", factory);
+        started.get(0).unreachable = true;
+        pool.release("firefox", driver, NONE);
+
+        assertThat(pool.acquire("firefox", factory), not(sameInstance(driver)));
+        assertThat(started, hasSize(2));
+    }
+
+    @Test
+    public void closeIdleSessions() throws Exception {
+        WebDriverPool pool = new WebDriverPool(true, 10);
+        pool.release("firefox", pool.acquire("firefox", factory), NONE);
+        pool.close();
+        assertThat(started.get(0).quit, equalTo(true));
+    }
+
+    /**
+     * Records what was done to the session.
+     */
+    private static final class Browser implements InvocationHandler {
+        final LinkedHashSet<String> windows = new LinkedHashSet<>();
+        String current = "main";
+        String url = "http://localhost:8080/";
+        boolean cookiesDeleted;
+        final List<String> cleaned = new ArrayList<>();
+        boolean quit;
+        boolean unreachable;
+
+        final WebDriver driver = (WebDriver) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {WebDriver.class, JavascriptExecutor.class}, this
+        );
+
+        Browser() {
+            windows.add("main");
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (unreachable) throw new UnreachableBrowserException("Gone");
+            switch (method.getName()) {
+                case "getWindowHandles":
+                    return new LinkedHashSet<>(windows);
+                case "switchTo":
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {WebDriver.TargetLocator.class}, this);
+                case "window":
+                    current = (String) args[0];
+                    return driver;
+                case "close":
+                    windows.remove(current);
+                    return null;
+                case "manage":
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {WebDriver.Options.class}, this);
+                case "deleteAllCookies":
+                    cookiesDeleted = true;
+                    cleaned.add(url);
+                    return null;
+                case "getCurrentUrl":
+                    return url;
+                case "get":
+                    url = (String) args[0];
+                    return null;
+                case "quit":
+                    quit = true;
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.jenkinsci.test.acceptance.update_center;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CachedUpdateCenterMetadataLoaderTest {
+
+    private static final String ETAG = "\"uc-1\"";
+
+    private static final String UC = "updateCenter.post(\n" +
+            "{\"id\":\"default\",\"plugins\":{" +
+            "\"provider\":{\"name\":\"provider\",\"gav\":\"org.jenkins-ci.plugins:provider:1.0\",\"version\":\"1.0\",\"requiredCore\":\"1.600\",\"dependencies\":[]}," +
+            "\"consumer\":{\"name\":\"consumer\",\"gav\":\"org.jenkins-ci.plugins:consumer:2.0\",\"version\":\"2.0\",\"requiredCore\":\"1.600\",\"dependencies\":[" +
+                "{\"name\":\"provider\",\"version\":\"1.0\",\"optional\":false}," +
+                "{\"name\":\"other\",\"version\":\"3.0\",\"optional\":true}" +
+            "]}" +
+            "}}\n" +
+            ");";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/update-center.json", new HttpHandler() {
+            @Override public void handle(HttpExchange exchange) throws IOException {
+                if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    downloads.incrementAndGet();
+                    byte[] body = UC.getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().add("ETag", ETAG);
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void downloadRevalidateAndIndex() throws Exception {
+        URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/update-center.json");
+        File cache = new File(tmp.getRoot(), "update-center.jsonp");
+
+        CachedUpdateCenterMetadataLoader.download(url, cache);
+        assertThat(downloads.get(), equalTo(1));
+        assertThat(FileUtils.readFileToString(cache), equalTo(UC));
+        assertThat(tmp.getRoot().list((dir, name) -> name.endsWith(".tmp")).length, equalTo(0));
+
+        UpdateCenterMetadata parsed = UpdateCenterMetadata.parse(cache);
+        assertMetadata(parsed);
+        assertThat(UpdateCenterIndex.of(cache).isFile(), equalTo(true));
+
+        // Not modified, index still valid after the cache is touched
+        CachedUpdateCenterMetadataLoader.download(url, cache);
+        assertThat(downloads.get(), equalTo(1));
+        UpdateCenterMetadata indexed = UpdateCenterIndex.read(cache);
+        assertThat(indexed, notNullValue());
+        assertMetadata(UpdateCenterMetadata.parse(cache));
+
+        // Index of changed file is ignored
+        FileUtils.writeStringToFile(cache, UC.replace("\"version\":\"2.0\"", "\"version\":\"2.10\""));
+        assertThat(UpdateCenterIndex.read(cache), nullValue());
+        assertThat(UpdateCenterMetadata.parse(cache).plugins.get("consumer").getVersion(), equalTo("2.10"));
+    }
+
+    private void assertMetadata(UpdateCenterMetadata ucm) {
+        assertThat(ucm.id, equalTo("default"));
+        assertThat(ucm.plugins.keySet(), containsInAnyOrder("provider", "consumer"));
+
+        PluginMetadata consumer = ucm.plugins.get("consumer");
+        assertThat(consumer.getVersion(), equalTo("2.0"));
+        assertThat(consumer.getDefaultArtifact().toString(), equalTo("org.jenkins-ci.plugins:consumer:hpi:2.0"));
+        assertThat(consumer.requiredCore().toString(), equalTo("1.600"));
+        assertThat(consumer.getDependencies(), hasSize(2));
+        assertThat(consumer.getDependencies().get(0).get(), sameInstance(ucm.plugins.get("provider")));
+        assertThat(consumer.getDependencies().get(1).optional, equalTo(true));
+    }
+}
@@ -0,0 +1,74 @@
+package org.jenkinsci.test.acceptance.update_center;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.test.acceptance.po.Jenkins;
+import org.junit.Test;
+
+import hudson.util.VersionNumber;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures dependency resolution of every plugin in the real update center.
+ *
+ * Not run as a part of the suite, invoke explicitly: <tt>mvn test -Dtest=UpdateCenterMetadataBenchmark</tt>.
+ * The update center is downloaded unless <tt>-Dbenchmark.updateCenter=/path/to/update-center.json</tt> is given.
+ */
+public class UpdateCenterMetadataBenchmark {
+
+    private final int iterations = Integer.getInteger("benchmark.iterations", 10);
+
+    @Test
+    public void transitiveDependenciesOfAllPlugins() throws Exception {
+        String path = System.getProperty("benchmark.updateCenter");
+        File data;
+        if (path != null) {
+            data = new File(path);
+        } else {
+            data = File.createTempFile("update-center", ".json");
+            data.deleteOnExit();
+            FileUtils.copyURLToFile(new URL("https://updates.jenkins-ci.org/update-center.json"), data);
+        }
+
+        UpdateCenterMetadata ucm = UpdateCenterMetadata.parse(data);
+
+        Jenkins jenkins = mock(Jenkins.class);
+        when(jenkins.getVersion()).thenReturn(new VersionNumber("10000"));
+        when(jenkins.getInstalledPluginVersions()).thenReturn(Collections.<String, VersionNumber>emptyMap());
+
+        long start = System.nanoTime();
+        ucm.transitiveDependenciesOf(jenkins, Collections.<PluginSpec>emptyList());
+        System.out.printf("Installation order of %d plugins computed in %d us%n",
+                ucm.plugins.size(), TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)
+        );
+
+        long total = 0;
+        long queries = 0;
+        long resolved = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (String name : ucm.plugins.keySet()) {
+                start = System.nanoTime();
+                List<PluginMetadata> deps;
+                try {
+                    deps = ucm.transitiveDependenciesOf(jenkins, Collections.singletonList(new PluginSpec(name)));
+                } catch (UpdateCenterMetadata.UnableToResolveDependencies ex) {
+                    continue; // Depends on plugin missing from update center
+                }
+                total += System.nanoTime() - start;
+                queries++;
+                resolved += deps.size();
+            }
+        }
+
+        System.out.printf("%d queries resolving %d plugins on average took %d us each%n",
+                queries, resolved / queries, TimeUnit.NANOSECONDS.toMicros(total / queries)
+        );
+    }
+}
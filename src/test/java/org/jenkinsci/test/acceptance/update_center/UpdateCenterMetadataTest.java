@@ -80,6 +80,41 @@ public class UpdateCenterMetadataTest {
         assertThat(ucm.transitiveDependenciesOf(jenkins, specs("provider@1", "consumer@1")), Matchers.contains(plugins.get("provider"), plugins.get("consumer")));
     }
 
+    @Test
+    public void transitiveDependenciesOfInstalled() throws Exception {
+        HashMap<String, VersionNumber> installed = new HashMap<>();
+        installed.put("branchb", new VersionNumber("1"));
+        installed.put("depa", new VersionNumber("0.9"));
+        when(jenkins.getInstalledPluginVersions()).thenReturn(installed);
+
+        // Dependencies of up to date branchb are not needed, outdated depa is
+        assertThat(ucm.transitiveDependenciesOf(jenkins, specs("complex")), Matchers.contains(
+                plugins.get("depa"), plugins.get("brancha"), plugins.get("complex")
+        ));
+    }
+
+    @Test
+    public void transitiveDependenciesOfCycle() throws Exception {
+        plugins.put("cyclea", new PluginMetadata("cyclea", "jenkins:cyclea:1", "1", "1", Collections.singletonList(new Dependency("cycleb:1"))));
+        plugins.put("cycleb", new PluginMetadata("cycleb", "jenkins:cycleb:1", "1", "1", Collections.singletonList(new Dependency("cyclea:1"))));
+        ucm = UpdateCenterMetadata.get("id", plugins);
+
+        assertThat(ucm.transitiveDependenciesOf(jenkins, specs("cyclea")), Matchers.containsInAnyOrder(plugins.get("cyclea"), plugins.get("cycleb")));
+    }
+
+    @Test
+    public void transitiveDependenciesOfModified() throws Exception {
+        assertThat(ucm.transitiveDependenciesOf(jenkins, specs("consumer")), Matchers.contains(plugins.get("provider"), plugins.get("consumer")));
+
+        // Reverse the dependency
+        PluginMetadata provider = new PluginMetadata("provider", "jenkins:provider:1", "1", "1", Collections.singletonList(new Dependency("consumer:1")));
+        PluginMetadata consumer = new PluginMetadata("consumer", "jenkins:consumer:1", "1", "1", NO_DEPS);
+        ucm.plugins.put("provider", provider);
+        ucm.plugins.put("consumer", consumer);
+
+        assertThat(ucm.transitiveDependenciesOf(jenkins, specs("provider")), Matchers.contains(consumer, provider));
+    }
+
     private List<PluginSpec> specs(String... specs) {
         ArrayList<PluginSpec> ret = new ArrayList<>(specs.length);
         for (String spec : specs) {
@@ -0,0 +1,107 @@
+package org.jenkinsci.test.acceptance.update_center;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class UpdateCenterMirrorTest {
+
+    private static final String UC = "updateCenter.post(\n" +
+            "{\"id\":\"default\",\"connectionCheckUrl\":\"http://www.google.com/\",\"signature\":{\"certificates\":[]},\"plugins\":{" +
+            "\"provider\":{\"name\":\"provider\",\"gav\":\"org.jenkins-ci.plugins:provider:1.0\",\"version\":\"1.0\",\"requiredCore\":\"1.600\",\"dependencies\":[]," +
+                "\"url\":\"http://updates.jenkins-ci.org/download/plugins/provider/1.0/provider.hpi\",\"sha1\":\"provider-sha1\"}," +
+            "\"consumer\":{\"name\":\"consumer\",\"gav\":\"org.jenkins-ci.plugins:consumer:2.0\",\"version\":\"2.0\",\"requiredCore\":\"1.600\",\"dependencies\":[" +
+                "{\"name\":\"provider\",\"version\":\"1.0\",\"optional\":false}" +
+            "],\"title\":\"Consumer\",\"url\":\"http://updates.jenkins-ci.org/download/plugins/consumer/2.0/consumer.hpi\",\"sha1\":\"consumer-sha1\",\"sha512\":\"consumer-sha512\"}" +
+            "}}\n" +
+            ");";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void mirrorAndSign() throws Exception {
+        File raw = tmp.newFile("update-center.jsonp");
+        FileUtils.writeStringToFile(raw, UC, StandardCharsets.UTF_8);
+
+        UpdateCenterMetadata ucm = UpdateCenterMetadata.parse(raw);
+        File jpi = plugin("consumer", "2.1-SNAPSHOT", "provider:1.0");
+        ucm.plugins.put("consumer", PluginMetadata.LocalOverride.create(jpi));
+
+        UpdateCenterMirror mirror = new UpdateCenterMirror(true);
+        ObjectNode json = mirror.mirror(raw, ucm, new URL("http://localhost:4242/"));
+
+        assertThat(json.has("signature"), equalTo(false));
+        assertThat(json.get("connectionCheckUrl").asText(), equalTo("http://localhost:4242/"));
+
+        JsonNode provider = json.get("plugins").get("provider");
+        assertThat(provider.get("url").asText(), equalTo("http://localhost:4242/plugins/provider/1.0/provider.hpi"));
+        assertThat(provider.get("sha1").asText(), equalTo("provider-sha1"));
+
+        JsonNode consumer = json.get("plugins").get("consumer");
+        assertThat(consumer.get("version").asText(), equalTo("2.1-SNAPSHOT"));
+        assertThat(consumer.get("url").asText(), equalTo("http://localhost:4242/plugins/consumer/2.1-SNAPSHOT/consumer.hpi"));
+        assertThat(consumer.get("title").asText(), equalTo("Consumer"));
+        assertThat(consumer.get("dependencies").get(0).get("name").asText(), equalTo("provider"));
+        assertThat(consumer.has("sha512"), equalTo(false));
+        byte[] content = Files.readAllBytes(jpi.toPath());
+        assertThat(consumer.get("sha1").asText(), equalTo(base64(MessageDigest.getInstance("SHA-1").digest(content))));
+        assertThat(consumer.get("sha256").asText(), equalTo(base64(MessageDigest.getInstance("SHA-256").digest(content))));
+
+        UpdateCenterMirror.Signer signer = mirror.getSigner();
+        ObjectNode signed = signer.sign(json);
+        ObjectNode signature = (ObjectNode) signed.remove("signature");
+        byte[] canonical = UpdateCenterMirror.canonical(signed).getBytes(StandardCharsets.UTF_8);
+
+        assertThat(signature.get("certificates").get(0).asText(), equalTo(base64(signer.getCertificate().getEncoded())));
+        assertThat(signature.get("correct_digest").asText(), equalTo(base64(MessageDigest.getInstance("SHA-1").digest(canonical))));
+        Signature verifier = Signature.getInstance("SHA1withRSA");
+        verifier.initVerify(signer.getCertificate());
+        verifier.update(canonical);
+        assertThat(verifier.verify(Base64.getDecoder().decode(signature.get("correct_signature").asText())), equalTo(true));
+    }
+
+    @Test
+    public void canonical() throws Exception {
+        JsonNode json = new ObjectMapper().readTree("{\"b\":[1,2.50,\"q\\\"\\n\",true],\"a\":null,\"c\":{\"z\":1,\"y\":{}}}");
+        assertThat(UpdateCenterMirror.canonical(json), equalTo("{\"a\":null,\"b\":[1,2.5,\"q\\\"\\u000a\",true],\"c\":{\"y\":{},\"z\":1}}"));
+    }
+
+    private File plugin(String name, String version, String dependencies) throws Exception {
+        Manifest manifest = new Manifest();
+        Attributes main = manifest.getMainAttributes();
+        main.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        main.putValue("Short-Name", name);
+        main.putValue("Plugin-Version", version);
+        main.putValue("Group-Id", "org.jenkins-ci.plugins");
+        main.putValue("Jenkins-Version", "1.600");
+        main.putValue("Plugin-Dependencies", dependencies);
+        File jpi = tmp.newFile(name + ".jpi");
+        new JarOutputStream(new FileOutputStream(jpi), manifest).close();
+        return jpi;
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,49 @@
+package org.jenkinsci.test.acceptance.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ElasticTimeCalibratorTest {
+
+    @Test
+    public void idleEnvironment() {
+        ElasticTimeCalibrator calibrator = new ElasticTimeCalibrator(0.5, 4, false);
+        calibrator.sampleLoad(1);
+        calibrator.sampleLatency(TimeUnit.MILLISECONDS.toNanos(10));
+
+        // Never shorter than the timeouts in tests
+        assertThat(calibrator.getCoefficient(), equalTo(1.0));
+    }
+
+    @Test
+    public void loadedEnvironment() {
+        ElasticTimeCalibrator calibrator = new ElasticTimeCalibrator(1.5, 4, false);
+        calibrator.sampleLoad(8);
+        assertThat(calibrator.getCoefficient(), closeTo(3, 0.001));
+
+        calibrator.sampleLatency(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(calibrator.getCoefficient(), closeTo(6, 0.001));
+
+        // Load average not available
+        calibrator.sampleLoad(-1);
+        assertThat(calibrator.getCoefficient(), closeTo(6, 0.001));
+
+        calibrator.sampleLoad(400);
+        assertThat(calibrator.getCoefficient(), equalTo(ElasticTimeCalibrator.MAX_COEFFICIENT));
+    }
+
+    @Test
+    public void smoothLatency() {
+        ElasticTimeCalibrator calibrator = new ElasticTimeCalibrator(1, 1, false);
+        calibrator.sampleLatency(TimeUnit.MILLISECONDS.toNanos(300));
+        assertThat(calibrator.getCoefficient(), closeTo(3, 0.001));
+
+        // Single fast request does not reset it
+        calibrator.sampleLatency(0);
+        assertThat(calibrator.getCoefficient(), closeTo(2.4, 0.001));
+    }
+}